@@ -0,0 +1,6 @@
+package spring_tasks.spring_project.dto;
+
+import java.util.List;
+
+
+public record BookPageDTO(List<BookResponseDTO> items, int size, String nextCursor){}
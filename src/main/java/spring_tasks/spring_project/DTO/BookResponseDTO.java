@@ -1,6 +1,7 @@
 package spring_tasks.spring_project.dto;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 
-public record BookResponseDTO( int id, String title, String author, LocalDate publishedDate){}
+public record BookResponseDTO( int id, String title, String author, LocalDate publishedDate, long version, Instant updatedAt){}
@@ -0,0 +1,6 @@
+package spring_tasks.spring_project.dto;
+
+import java.time.Instant;
+
+// What a conditional GET compares against: the ETag version and the Last-Modified time
+public record BookVersionDTO(long version, Instant updatedAt){}
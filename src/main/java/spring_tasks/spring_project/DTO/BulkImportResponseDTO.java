@@ -0,0 +1,6 @@
+package spring_tasks.spring_project.dto;
+
+import java.util.List;
+
+
+public record BulkImportResponseDTO(int created, int rejected, List<BulkItemResultDTO> results){}
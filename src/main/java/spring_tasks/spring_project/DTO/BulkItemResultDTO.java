@@ -0,0 +1,5 @@
+package spring_tasks.spring_project.dto;
+
+
+
+public record BulkItemResultDTO(int index, Integer id, String status, String error){}
@@ -0,0 +1,7 @@
+package spring_tasks.spring_project.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record GoogleBulkImportRequestDTO(@NotEmpty(message = "ids are required") List<String> ids){}
@@ -0,0 +1,7 @@
+package spring_tasks.spring_project.dto;
+
+import java.time.Instant;
+
+// State of a background Google Books import: QUEUED, RUNNING, DONE with a result, or FAILED with an error
+public record GoogleImportJobDTO(String id, String status, int total, Instant submittedAt, Instant finishedAt,
+                                 BulkImportResponseDTO result, String error){}
@@ -0,0 +1,10 @@
+package spring_tasks.spring_project.dto;
+
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+// source is LOCAL for a book in the catalog (id is its book id), GOOGLE for a Google Books volume,
+// or UNAVAILABLE for the single placeholder returned when nothing matched locally and Google Books failed
+public record SearchResultDTO(String id, String title, List<String> author, LocalDate publishedDate, String source){}
@@ -0,0 +1,24 @@
+package spring_tasks.spring_project.cache;
+
+import spring_tasks.spring_project.dto.BookResponseDTO;
+
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * Cache of book responses keyed by id. The in-process {@link CaffeineBookCache} is the default;
+ * a distributed implementation can be plugged in by setting {@code app.cache.books.type} to another value
+ * and registering its own bean.
+ */
+public interface BookCache {
+
+    Optional<BookResponseDTO> get(int id);
+
+    // The cached book, or the one loader reads on a miss; concurrent misses for the id share one load. An evict
+    // of the id while that load is in flight removes it, so a row read before a change is never cached after it
+    Optional<BookResponseDTO> get(int id, IntFunction<Optional<BookResponseDTO>> loader);
+
+    void put(BookResponseDTO book);
+
+    void evict(int id);
+}
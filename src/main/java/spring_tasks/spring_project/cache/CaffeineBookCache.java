@@ -0,0 +1,80 @@
+package spring_tasks.spring_project.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+
+@Component
+@ConditionalOnProperty(name = "app.cache.books.type", havingValue = "caffeine", matchIfMissing = true)
+public class CaffeineBookCache implements BookCache {
+
+    private final AsyncCache<Integer, BookResponseDTO> cache;
+
+    public CaffeineBookCache(MeterRegistry meterRegistry,
+                             @Value("${app.cache.books.max-size:10000}") long maxSize,
+                             @Value("${app.cache.books.ttl:10m}") Duration ttl) {
+        // size-bounded W-TinyLFU eviction plus a TTL so entries changed outside this node age out
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+    }
+
+    @Override
+    public Optional<BookResponseDTO> get(int id) {
+        CompletableFuture<BookResponseDTO> cached = cache.getIfPresent(id);
+        // a load still in flight is a miss, not something to wait for
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cached.join());
+    }
+
+    @Override
+    public Optional<BookResponseDTO> get(int id, IntFunction<Optional<BookResponseDTO>> loader) {
+        CompletableFuture<BookResponseDTO> mine = new CompletableFuture<>();
+        // only the empty future is inserted under the map's lock; the row is read on the caller's thread after
+        // it is released, so other keys in the bin never wait for the database and no monitor is held
+        CompletableFuture<BookResponseDTO> shared = cache.get(id, (key, executor) -> mine);
+        if (shared == mine) {
+            try {
+                // a null result and a failure are both dropped by the cache
+                mine.complete(loader.apply(id).orElse(null));
+            } catch (Throwable e) {
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return Optional.ofNullable(shared.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(BookResponseDTO book) {
+        cache.put(book.id(), CompletableFuture.completedFuture(book));
+    }
+
+    @Override
+    public void evict(int id) {
+        cache.synchronous().invalidate(id);
+    }
+}
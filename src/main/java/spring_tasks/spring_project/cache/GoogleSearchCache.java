@@ -0,0 +1,73 @@
+package spring_tasks.spring_project.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Caches Google Books search results by normalized query and coalesces concurrent identical searches,
+ * so N callers asking for the same title at once share a single upstream call.
+ * Empty results are kept for a shorter time; failures are never cached.
+ */
+@Component
+public class GoogleSearchCache {
+
+    private final AsyncCache<String, List<GoogleApiResponseDTO>> cache;
+
+    public GoogleSearchCache(MeterRegistry meterRegistry,
+                             @Value("${app.cache.google-search.max-size:10000}") long maxSize,
+                             @Value("${app.cache.google-search.ttl:10m}") Duration ttl,
+                             @Value("${app.cache.google-search.negative-ttl:1m}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.<String, List<GoogleApiResponseDTO>>writing(
+                        (query, books) -> books.isEmpty() ? negativeTtl : ttl))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "google.search");
+    }
+
+    public List<GoogleApiResponseDTO> get(String title, Function<String, List<GoogleApiResponseDTO>> loader) {
+        String query = normalize(title);
+        CompletableFuture<List<GoogleApiResponseDTO>> mine = new CompletableFuture<>();
+        CompletableFuture<List<GoogleApiResponseDTO>> shared = cache.get(query, (key, executor) -> mine);
+        if (shared == mine) {
+            // first caller loads on its own thread, everyone else waits on the same future
+            try {
+                mine.complete(loader.apply(query));
+            } catch (Throwable e) {
+                // a failed future is dropped by the cache, so the next caller retries upstream; an Error must
+                // complete it too, or the waiters and every later caller for the query would hang on it
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return shared.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    static String normalize(String title) {
+        return title.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
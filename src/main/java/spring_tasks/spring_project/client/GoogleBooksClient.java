@@ -0,0 +1,147 @@
+package spring_tasks.spring_project.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Non-blocking client for the Google Books volumes API. Every call runs through the
+ * googleApiBreaker circuit breaker and the googleApiRetry policy (exponential backoff with jitter).
+ * Each attempt, retries included, takes a permit from the googleApiRateLimiter quota, then a slot in the
+ * googleApiBulkhead, and is cut off by googleApiTimeLimiter. Waiting for quota holds no slot, so calls
+ * queued behind the limiter never crowd out the ones that already have a permit. Bulk imports first take
+ * a permit from the smaller googleImportRateLimiter, so however large an import is, the rest of the shared
+ * quota stays free for interactive searches and single adds. Responses are limited to
+ * the fields GoogleVolumeMapper reads and handed over as raw bytes, so no JSON tree is built for them.
+ */
+@Component
+public class GoogleBooksClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleBooksClient.class);
+
+    // partial responses: Google drops every other volume field before sending
+    static final String SEARCH_FIELDS = "items(id,volumeInfo(title,authors,publishedDate))";
+    static final String VOLUME_FIELDS = "id,volumeInfo(title,authors,publishedDate)";
+    // sent as a header so the key never shows up in a logged URL or exception message
+    static final String API_KEY_HEADER = "X-Goog-Api-Key";
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final RateLimiter rateLimiter;
+    private final RateLimiter importRateLimiter;
+    private final Bulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
+    private final String apiKey;
+
+    public GoogleBooksClient(@Qualifier("googleBooksWebClient") WebClient webClient,
+                             CircuitBreakerRegistry circuitBreakerRegistry,
+                             RetryRegistry retryRegistry,
+                             RateLimiterRegistry rateLimiterRegistry,
+                             BulkheadRegistry bulkheadRegistry,
+                             TimeLimiterRegistry timeLimiterRegistry,
+                             @Value("${google.api.key}") String apiKey) {
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("googleApiBreaker");
+        this.retry = retryRegistry.retry("googleApiRetry");
+        this.rateLimiter = rateLimiterRegistry.rateLimiter("googleApiRateLimiter");
+        this.importRateLimiter = rateLimiterRegistry.rateLimiter("googleImportRateLimiter");
+        this.bulkhead = bulkheadRegistry.bulkhead("googleApiBulkhead");
+        this.timeLimiter = timeLimiterRegistry.timeLimiter("googleApiTimeLimiter");
+        this.apiKey = apiKey;
+    }
+
+    // Innermost first: a timed-out attempt frees its bulkhead slot, and the breaker sees each attempt's outcome.
+    // Permits are taken before the bulkhead slot, so a call waiting for quota holds no slot; a call that finds
+    // the bulkhead already full is turned away before it spends a permit
+    private Mono<byte[]> guarded(Mono<byte[]> call) {
+        return call
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(RateLimiterOperator.of(rateLimiter))
+                .transform(this::unlessBulkheadFull)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry));
+    }
+
+    // As guarded, with the import quota taken before the shared one on every attempt
+    private Mono<byte[]> guardedImport(Mono<byte[]> call) {
+        return call
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(RateLimiterOperator.of(rateLimiter))
+                .transformDeferred(RateLimiterOperator.of(importRateLimiter))
+                .transform(this::unlessBulkheadFull)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry));
+    }
+
+    // Only a hint: a slot can still be taken while the permit is awaited, then the bulkhead itself rejects the call
+    private Mono<byte[]> unlessBulkheadFull(Mono<byte[]> attempt) {
+        return Mono.defer(() -> bulkhead.getMetrics().getAvailableConcurrentCalls() > 0
+                ? attempt
+                : Mono.error(BulkheadFullException.createBulkheadFullException(bulkhead)));
+    }
+
+    // Search volumes by title
+    public Mono<byte[]> searchVolumes(String title) {
+        logger.info("Searching Google Books by title");
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .queryParam("q", "{q}")
+                        .queryParam("fields", "{fields}")
+                        .build("intitle:" + title, SEARCH_FIELDS))
+                .header(API_KEY_HEADER, apiKey)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .transform(this::guarded);
+    }
+
+    // Fetch a single volume; a 404 becomes NoSuchElementException, which is neither retried nor recorded
+    public Mono<byte[]> getVolume(String id) {
+        logger.info("Getting Google Books volume with id: {}", id);
+        return fetchVolume(id).transform(this::guarded);
+    }
+
+    // Fetch a single volume for a bulk import, at the lower priority of the import quota
+    public Mono<byte[]> importVolume(String id) {
+        logger.debug("Importing Google Books volume with id: {}", id);
+        return fetchVolume(id).transform(this::guardedImport);
+    }
+
+    private Mono<byte[]> fetchVolume(String id) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .pathSegment("{id}")
+                        .queryParam("fields", "{fields}")
+                        .build(id, VOLUME_FIELDS))
+                .header(API_KEY_HEADER, apiKey)
+                .retrieve()
+                .onStatus(status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                        response -> Mono.error(new NoSuchElementException("No book found for id: " + id)))
+                .bodyToMono(byte[].class);
+    }
+}
@@ -0,0 +1,12 @@
+package spring_tasks.spring_project.client;
+
+/**
+ * A Google Books response body that could not be read at all. The same bytes would fail the same
+ * way again, so the googleApiRetry policy does not retry it and googleApiBreaker does not record it.
+ */
+public class GoogleResponseParseException extends RuntimeException {
+
+    public GoogleResponseParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
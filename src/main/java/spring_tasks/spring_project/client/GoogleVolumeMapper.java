@@ -0,0 +1,185 @@
+package spring_tasks.spring_project.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maps Google Books volume JSON to {@link GoogleApiResponseDTO}. The body is read with a streaming
+ * parser that keeps only id, title, authors and publishedDate and skips everything else without
+ * building a tree, so the cost does not grow with the parts of a volume the API never uses.
+ * <p>
+ * Each volume is checked field by field: one without an id or title is skipped, a missing or
+ * unreadable publishedDate becomes null, and authors default to "Unknown". A body that breaks off
+ * after some volumes keeps those volumes. Every such case increments
+ * {@code google.volume.parse.failures}, tagged with the field and whether it was skipped, defaulted
+ * or truncated.
+ */
+@Component
+public class GoogleVolumeMapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleVolumeMapper.class);
+
+    // Google gives a year, a year and month, or a full date; the missing parts default to 1
+    private static final DateTimeFormatter PUBLISHED_DATE = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy[-MM[-dd]]")
+            .parseDefaulting(ChronoField.MONTH_OF_YEAR, 1)
+            .parseDefaulting(ChronoField.DAY_OF_MONTH, 1)
+            .toFormatter();
+
+    static final String PARSE_FAILURES = "google.volume.parse.failures";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final MeterRegistry meterRegistry;
+
+    public GoogleVolumeMapper(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Map the items of a search response; unusable items are left out
+    public List<GoogleApiResponseDTO> readSearchResults(byte[] body) {
+        List<GoogleApiResponseDTO> books = new ArrayList<>();
+        if (body == null || body.length == 0) {
+            return books;
+        }
+        int items = 0;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && field.equals("items")) {
+                    JsonToken item;
+                    while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        items++;
+                        if (item == JsonToken.START_OBJECT) {
+                            readVolume(parser).ifPresent(books::add);
+                        } else {
+                            parser.skipChildren();
+                            failure("item", "skipped");
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            if (books.isEmpty()) {
+                throw new GoogleResponseParseException("Malformed Google Books response", e);
+            }
+            // the volumes before the break are complete, the rest of the page is lost
+            failure("body", "truncated");
+            logger.warn("Google Books response broke off after {} volumes: {}", books.size(), e.getMessage());
+        }
+        if (books.size() < items) {
+            logger.warn("Mapped {} of {} Google Books volumes", books.size(), items);
+        }
+        return books;
+    }
+
+    // Map a single-volume response; empty when it has no usable volume
+    public Optional<GoogleApiResponseDTO> readVolume(byte[] body) {
+        if (body == null || body.length == 0) {
+            return Optional.empty();
+        }
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readVolume(parser);
+        } catch (IOException e) {
+            throw new GoogleResponseParseException("Malformed Google Books response", e);
+        }
+    }
+
+    // Reads one volume object, the parser positioned on its START_OBJECT
+    private Optional<GoogleApiResponseDTO> readVolume(JsonParser parser) throws IOException {
+        String id = null;
+        String title = null;
+        List<String> authors = null;
+        String publishedDate = null;
+        boolean hasVolumeInfo = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("id") && value.isScalarValue()) {
+                id = parser.getText();
+            } else if (field.equals("volumeInfo") && value == JsonToken.START_OBJECT) {
+                hasVolumeInfo = true;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String infoField = parser.currentName();
+                    JsonToken infoValue = parser.nextToken();
+                    if (infoField.equals("title") && infoValue == JsonToken.VALUE_STRING) {
+                        title = parser.getText();
+                    } else if (infoField.equals("publishedDate") && infoValue == JsonToken.VALUE_STRING) {
+                        publishedDate = parser.getText();
+                    } else if (infoField.equals("authors") && infoValue == JsonToken.START_ARRAY) {
+                        authors = new ArrayList<>();
+                        JsonToken author;
+                        while ((author = parser.nextToken()) != JsonToken.END_ARRAY) {
+                            if (author == JsonToken.VALUE_STRING && !parser.getText().isBlank()) {
+                                authors.add(parser.getText());
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!hasVolumeInfo) {
+            return Optional.empty();
+        }
+        if (id == null || id.isBlank()) {
+            failure("id", "skipped");
+            return Optional.empty();
+        }
+        if (title == null || title.isBlank()) {
+            failure("title", "skipped");
+            return Optional.empty();
+        }
+        if (authors == null || authors.isEmpty()) {
+            authors = List.of("Unknown");
+        }
+        return Optional.of(new GoogleApiResponseDTO(id, title, authors, publishedDate(publishedDate)));
+    }
+
+    private LocalDate publishedDate(String text) {
+        if (text == null) {
+            failure("publishedDate", "defaulted");
+            return null;
+        }
+        try {
+            return LocalDate.parse(text, PUBLISHED_DATE);
+        } catch (DateTimeParseException e) {
+            failure("publishedDate", "defaulted");
+            return null;
+        }
+    }
+
+    private void failure(String field, String action) {
+        meterRegistry.counter(PARSE_FAILURES, "field", field, "action", action).increment();
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package spring_tasks.spring_project.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit for one group of endpoints. A request that finishes within the latency
+ * target while the limit was at least half used raises the limit by one; a slower or failed request
+ * cuts it by the backoff ratio. So the limit follows what the service behind the group can take
+ * instead of letting requests queue up. Limit, in-flight count and rejections are published as
+ * {@code books.concurrency.limit}, {@code books.concurrency.in.flight} and
+ * {@code books.concurrency.rejected}, tagged with the group.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit = new AtomicInteger();
+    private final Counter rejected;
+
+    public AdaptiveConcurrencyLimiter(String group, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyTarget, double backoffRatio, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limits for group " + group);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit.set(Math.max(minLimit, Math.min(initialLimit, maxLimit)));
+        Gauge.builder("books.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("group", group).register(meterRegistry);
+        Gauge.builder("books.concurrency.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("group", group).register(meterRegistry);
+        this.rejected = Counter.builder("books.concurrency.rejected").tag("group", group).register(meterRegistry);
+    }
+
+    // Admit a request if the group is under its limit; returns the in-flight count including it, or -1 when rejected
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    // Release an admitted request and adjust the limit from how it went; a CAS loop, as this runs on every
+    // /books request and a monitor would pin virtual threads
+    public void release(int inFlightAtStart, long latencyNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        boolean backOff = failed || latencyNanos > latencyTargetNanos;
+        while (true) {
+            int current = limit.get();
+            int next;
+            if (backOff) {
+                next = Math.max(minLimit, (int) (current * backoffRatio));
+            } else if (inFlightAtStart * 2 >= current) {
+                // only grow a limit that is actually in use, so an idle group cannot drift up to the max
+                next = Math.min(maxLimit, current + 1);
+            } else {
+                return;
+            }
+            if (next == current || limit.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // Release an admitted request whose duration says nothing about load
+    public void releaseUnmeasured() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,155 @@
+package spring_tasks.spring_project.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import spring_tasks.spring_project.dto.ErrorResponseDTO;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Admission control for {@code /books}. Each endpoint group (local reads, writes, and the external
+ * Google Books endpoints) has its own {@link AdaptiveConcurrencyLimiter}, so a slow Google cannot take
+ * the threads that {@code GET /books/{id}} needs. A request over its group's limit is answered at once
+ * with 503 and Retry-After instead of queueing in Tomcat. Limits come from
+ * {@code app.concurrency.<group>.*}; {@code app.concurrency.enabled=false} turns the filter off.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    enum Group { READS, WRITES, EXTERNAL }
+
+    private final Map<Group, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(Group.class);
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(Environment environment, ObjectProvider<MeterRegistry> meterRegistries, ObjectMapper objectMapper) {
+        // web slice tests start filters without the metrics auto-configuration
+        MeterRegistry meterRegistry = meterRegistries.getIfAvailable(SimpleMeterRegistry::new);
+        this.enabled = environment.getProperty("app.concurrency.enabled", Boolean.class, true);
+        this.retryAfterSeconds = Math.max(1, environment.getProperty("app.concurrency.retry-after", Duration.class, Duration.ofSeconds(1)).toSeconds());
+        this.objectMapper = objectMapper;
+        limiters.put(Group.READS, limiter(environment, meterRegistry, Group.READS, 50, 10, 200, Duration.ofMillis(250)));
+        limiters.put(Group.WRITES, limiter(environment, meterRegistry, Group.WRITES, 20, 5, 100, Duration.ofMillis(500)));
+        limiters.put(Group.EXTERNAL, limiter(environment, meterRegistry, Group.EXTERNAL, 10, 2, 50, Duration.ofSeconds(3)));
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(Environment environment, MeterRegistry meterRegistry, Group group,
+                                                      int initialLimit, int minLimit, int maxLimit, Duration latencyTarget) {
+        String name = group.name().toLowerCase(Locale.ROOT);
+        String prefix = "app.concurrency." + name + ".";
+        return new AdaptiveConcurrencyLimiter(name,
+                environment.getProperty(prefix + "initial-limit", Integer.class, initialLimit),
+                environment.getProperty(prefix + "min-limit", Integer.class, minLimit),
+                environment.getProperty(prefix + "max-limit", Integer.class, maxLimit),
+                environment.getProperty(prefix + "latency-target", Duration.class, latencyTarget),
+                environment.getProperty(prefix + "backoff-ratio", Double.class, 0.9),
+                meterRegistry);
+    }
+
+    // Which limiter a request counts against; endpoints that may call Google Books are external
+    static Group groupOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        boolean read = method.equals("GET") || method.equals("HEAD");
+        // polling an import job only reads its state, submitting one calls Google Books
+        if ((path.startsWith("/books/addViaAPI") && !read) || path.equals("/books/search") || path.equals("/books/search/hybrid")) {
+            return Group.EXTERNAL;
+        }
+        return read ? Group.READS : Group.WRITES;
+    }
+
+    AdaptiveConcurrencyLimiter limiter(Group group) {
+        return limiters.get(group);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !(path.equals("/books") || path.startsWith("/books/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = groupOf(request);
+        AdaptiveConcurrencyLimiter limiter = limiters.get(group);
+        int inFlightAtStart = limiter.tryAcquire();
+        if (inFlightAtStart < 0) {
+            // debug: under overload this fires per request; books.concurrency.rejected counts them
+            logger.debug("Shedding {} {}: {} limit {} reached", request.getMethod(), request.getRequestURI(), group, limiter.getLimit());
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // streamed responses such as the export hold their slot until the stream completes; their
+                // duration depends on the data, not on load, so it does not move the limit
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limiter.releaseUnmeasured();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else if (request.getRequestURI().endsWith("/bulk")) {
+                // a bulk request takes as long as its batch, so only a failure says something about load
+                limiter.release(inFlightAtStart, 0, failed || isOverloaded(response));
+            } else {
+                limiter.release(inFlightAtStart, System.nanoTime() - start, failed || isOverloaded(response));
+            }
+        }
+    }
+
+    // 503 and 504 mean a dependency behind the endpoint is struggling, like a slow response
+    private static boolean isOverloaded(HttpServletResponse response) {
+        return response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponseDTO("Too many concurrent requests, retry later", HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+}
@@ -0,0 +1,38 @@
+package spring_tasks.spring_project.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Reports which execution mode the service runs in. With {@code spring.threads.virtual.enabled=true}
+ * on a Java 21+ runtime, Tomcat request handling, the {@code @KafkaListener} containers and the
+ * application task executor (used for async MVC such as the NDJSON export) all run on virtual threads,
+ * and the blocking waits on Google Books responses park a virtual thread instead of holding a platform thread.
+ */
+@Configuration
+public class ExecutionModeConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionModeConfig.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportExecutionMode() {
+        boolean virtualThreadsAvailable = JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+        if (virtualThreadsRequested && !virtualThreadsAvailable) {
+            logger.warn("Virtual threads requested but running on Java {}, falling back to platform threads",
+                    JavaVersion.getJavaVersion());
+        } else if (virtualThreadsRequested) {
+            // pinned carriers are reported when the JVM runs with -Djdk.tracePinnedThreads=short
+            logger.info("Execution mode: virtual threads");
+        } else {
+            logger.info("Execution mode: platform threads");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package spring_tasks.spring_project.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter that keeps only a random share ({@code rate}) of the events at or below
+ * {@code maxLevel} from the listed loggers and their children, for per-request messages on hot paths.
+ * Events above maxLevel always pass. Turbo filters run before the event is built, so a sampled-out
+ * message costs no formatting, MDC copy or queue slot. Configured in logback-spring.xml from
+ * {@code app.logging.sampling.*}.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private String[] loggers = new String[0];
+    private double rate = 1.0;
+    private Level maxLevel = Level.INFO;
+
+    // Comma-separated logger names
+    public void setLoggers(String loggers) {
+        this.loggers = Arrays.stream(loggers.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || level == null || rate >= 1.0 || level.toInt() > maxLevel.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        // disabled levels are dropped by the logger anyway; getEffectiveLevel avoids re-entering turbo filters
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel()) || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String name) {
+        for (String prefix : loggers) {
+            if (name.startsWith(prefix) && (name.length() == prefix.length() || name.charAt(prefix.length()) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -10,26 +10,29 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 import org.slf4j.MDC;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import java.util.Optional;
-import java.util.UUID;
 
+/**
+ * Puts traceId, spanId and requestId into the MDC for every request. A valid W3C traceparent header
+ * supplies the trace id so logs join the caller's trace; otherwise one is generated by {@link TraceIds}.
+ * Without an X-Request-ID the trace id doubles as the request id, so a request costs two random numbers
+ * and no UUIDs.
+ */
 @Component
 public class LoggingFilter extends OncePerRequestFilter {
 
-    private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
-
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        String traceId = UUID.randomUUID().toString();
-        String requestId = Optional.ofNullable(request.getHeader("X-Request-ID"))
-                .orElse(UUID.randomUUID().toString());
+        String traceId = TraceIds.traceIdOf(request.getHeader("traceparent"));
+        if (traceId == null) {
+            traceId = TraceIds.newTraceId();
+        }
+        String requestId = request.getHeader("X-Request-ID");
 
         MDC.put("traceId", traceId);
-        MDC.put("requestId", requestId);
+        MDC.put("spanId", TraceIds.newSpanId());
+        MDC.put("requestId", requestId != null ? requestId : traceId);
 
         try {
             filterChain.doFilter(request, response);
@@ -37,4 +40,4 @@ public class LoggingFilter extends OncePerRequestFilter {
             MDC.clear();
         }
     }
-}
\ No newline at end of file
+}
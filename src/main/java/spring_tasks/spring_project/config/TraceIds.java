@@ -0,0 +1,85 @@
+package spring_tasks.spring_project.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace and span ids in the W3C Trace Context format: 32 and 16 lowercase hex digits, never all zero.
+ * They only have to be unique, not unpredictable, so they come from ThreadLocalRandom instead of the
+ * SecureRandom behind UUID.randomUUID(), which every request thread would otherwise contend on.
+ */
+public final class TraceIds {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TraceIds() {
+    }
+
+    public static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high;
+        long low;
+        do {
+            high = random.nextLong();
+            low = random.nextLong();
+        } while (high == 0 && low == 0);
+        char[] id = new char[32];
+        writeHex(high, id, 0);
+        writeHex(low, id, 16);
+        return new String(id);
+    }
+
+    public static String newSpanId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long value;
+        do {
+            value = random.nextLong();
+        } while (value == 0);
+        char[] id = new char[16];
+        writeHex(value, id, 0);
+        return new String(id);
+    }
+
+    // The trace id of a valid traceparent header (version-traceid-parentid-flags), or null
+    public static String traceIdOf(String traceparent) {
+        if (traceparent == null || traceparent.length() < 55 || traceparent.charAt(2) != '-'
+                || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+            return null;
+        }
+        // version ff is invalid; later versions may append fields, version 00 may not
+        if (!isHex(traceparent, 0, 2) || traceparent.startsWith("ff")
+                || (traceparent.length() > 55 && (traceparent.startsWith("00") || traceparent.charAt(55) != '-'))) {
+            return null;
+        }
+        if (!isHex(traceparent, 3, 35) || !isHex(traceparent, 36, 52) || !isHex(traceparent, 53, 55)
+                || isZero(traceparent, 3, 35) || isZero(traceparent, 36, 52)) {
+            return null;
+        }
+        return traceparent.substring(3, 35);
+    }
+
+    private static void writeHex(long value, char[] out, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            out[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static boolean isHex(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+package spring_tasks.spring_project.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class WebClientConfig {
+
+    // Dedicated, bounded pool for Google Books so a slow upstream cannot take every connection
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider googleBooksConnectionProvider(
+            @Value("${google.api.client.max-connections:50}") int maxConnections,
+            @Value("${google.api.client.pending-acquire-max-count:200}") int pendingAcquireMaxCount,
+            @Value("${google.api.client.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${google.api.client.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${google.api.client.max-life-time:5m}") Duration maxLifeTime) {
+        return ConnectionProvider.builder("google-books")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(Duration.ofSeconds(30))
+                // publishes reactor.netty.connection.provider.* pool gauges to Micrometer
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient googleBooksWebClient(WebClient.Builder builder,
+                                          ConnectionProvider googleBooksConnectionProvider,
+                                          @Value("${google.api.base-url}") String baseUrl,
+                                          @Value("${google.api.client.connect-timeout:2s}") Duration connectTimeout,
+                                          @Value("${google.api.client.response-timeout:5s}") Duration responseTimeout,
+                                          @Value("${google.api.client.max-response-size:2MB}") DataSize maxResponseSize) {
+        HttpClient httpClient = HttpClient.create(googleBooksConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .compress(true);
+
+        return builder
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) maxResponseSize.toBytes()))
+                .build();
+    }
+}
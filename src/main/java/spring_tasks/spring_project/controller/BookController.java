@@ -1,19 +1,38 @@
 package spring_tasks.spring_project.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import spring_tasks.spring_project.dto.*;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.repository.BookFilter;
+import spring_tasks.spring_project.repository.BookPatch;
+import spring_tasks.spring_project.service.BookBulkService;
 import spring_tasks.spring_project.service.BookService;
+import spring_tasks.spring_project.service.GoogleImportJobService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,46 +44,117 @@ public class BookController {
 
     private static final Logger logger=LoggerFactory.getLogger(BookController.class);
 
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private BookService bookService;
 
-    // GET all books
+    @Autowired
+    private BookBulkService bookBulkService;
+
+    @Autowired
+    private GoogleImportJobService googleImportJobService;
+
+    // GET a page of books, optionally by exact author or title and a published date range;
+    // continue with the returned nextCursor and the same filters. A matching If-None-Match gets 304.
+    // The body is JSON, CBOR or Smile depending on Accept, so caches must key on it
     @GetMapping
-    public List<BookResponseDTO> getAllBooks() {
+    public ResponseEntity<BookPageDTO> getBooks(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                @RequestParam(defaultValue = "20") int size,
+                                @RequestParam(defaultValue = "asc") String sort,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(required = false) String author,
+                                @RequestParam(required = false) String title,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         logger.info("GET /books");
-        return bookService.getAllBooks();
+        BookPageDTO page = bookService.getBooksPage(size, sort, cursor, new BookFilter(author, title, from, to));
+        return ResponseEntity.ok().eTag(pageETag(page, representation(accept))).varyBy(HttpHeaders.ACCEPT).body(page);
     }
 
 
-    //GET a book by ID
+    // GET the whole catalog as NDJSON, streamed while it is read
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        logger.info("GET /books/export");
+        StreamingResponseBody body = out -> bookService.exportBooks(out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    //GET a book by ID, with its version as the ETag and its last write as Last-Modified;
+    // If-None-Match or If-Modified-Since is checked against those two columns before the book is read
     @GetMapping("/{id}")
-    public ResponseEntity<BookResponseDTO> getBookById(@PathVariable int id) {
+    public ResponseEntity<BookResponseDTO> getBookById(@PathVariable int id, WebRequest request) {
         logger.info("GET /books/{id}");
+        String representation = representation(request.getHeader(HttpHeaders.ACCEPT));
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            Optional<BookVersionDTO> current = bookService.getBookVersion(id);
+            if (current.isPresent() && request.checkNotModified(versionETag(current.get().version(), representation),
+                    current.get().updatedAt() != null ? current.get().updatedAt().toEpochMilli() : -1)) {
+                return null;
+            }
+        }
         Optional<BookResponseDTO> book=bookService.getBookById(id);
-        return book.map(ResponseEntity::ok).orElseThrow(()->new NoSuchElementException("Book with ID "+ id+" not found"));
+        return book.map(found -> withETag(found, representation)).orElseThrow(()->new NoSuchElementException("Book with ID "+ id+" not found"));
     }
 
     //POST a new book
     @PostMapping
-    public ResponseEntity<BookResponseDTO> addBook(@Valid @RequestBody BookRequestDTO book) {
+    public ResponseEntity<BookResponseDTO> addBook(@Valid @RequestBody BookRequestDTO book,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         logger.info("POST /books");
         BookResponseDTO savedBook=bookService.addBook(book);
-        return ResponseEntity.status(201).body(savedBook);
+        return ResponseEntity.status(201).eTag(versionETag(savedBook.version(), representation(accept))).body(savedBook);
+    }
+
+    //POST many books at once as a JSON array
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkImportResponseDTO addBooksBulk(@RequestBody List<BookRequestDTO> books) {
+        logger.info("POST /books/bulk");
+        return bookBulkService.importBooks(books);
     }
 
-    // PUT update a book
+    //POST many books at once as NDJSON, read line by line
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkImportResponseDTO addBooksBulkNdjson(InputStream body) throws IOException {
+        logger.info("POST /books/bulk (ndjson)");
+        return bookBulkService.importNdjson(body);
+    }
+
+    // PUT update a book; with If-Match set, only if it is still at that version (412 otherwise)
     @PutMapping("/{id}")
-    public ResponseEntity<BookResponseDTO> updateBook(@PathVariable int id,@Valid @RequestBody BookRequestDTO updatedBook) {
+    public ResponseEntity<BookResponseDTO> updateBook(@PathVariable int id,@Valid @RequestBody BookRequestDTO updatedBook,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         logger.info("PUT /books/{id}");
-        Optional<BookResponseDTO>book=bookService.updateBook(id,updatedBook);
-        return book.map(ResponseEntity::ok).orElseThrow(()->new NoSuchElementException("Book with ID "+ id+" not found"));
+        Optional<BookResponseDTO>book=bookService.updateBook(id,updatedBook,expectedVersion(ifMatch));
+        return book.map(updated -> withETag(updated, representation(accept))).orElseThrow(()->new NoSuchElementException("Book with ID "+ id+" not found"));
     }
 
-    // DELETE a book by ID
+    // PATCH some fields of a book with a JSON Merge Patch; If-Match works as for PUT. The book is not read
+    // back, so the answer is 204 with the new version's ETag
+    @PatchMapping(value = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<Void> patchBook(@PathVariable int id, @RequestBody JsonNode patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logger.info("PATCH /books/{id}");
+        Optional<BookVersionDTO> version=bookService.patchBook(id,BookPatch.fromMergePatch(patch),expectedVersion(ifMatch));
+        return version.map(patched -> {
+            ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent().eTag(versionETag(patched.version(), representation(accept)));
+            if (patched.updatedAt() != null) {
+                response.lastModified(patched.updatedAt());
+            }
+            return response.<Void>build();
+        }).orElseThrow(()->new NoSuchElementException("Book with ID "+ id+" not found"));
+    }
+
+    // DELETE a book by ID; with If-Match set, only if it is still at that version (412 otherwise)
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteBook(@PathVariable int id) {
+    public ResponseEntity<String> deleteBook(@PathVariable int id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("DELETE /books/{id}");
-        boolean deleted= bookService.deleteBook(id);
+        boolean deleted= bookService.deleteBook(id,expectedVersion(ifMatch));
         if(deleted){
             return ResponseEntity.ok("Book removed");
         }
@@ -76,9 +166,111 @@ public class BookController {
         return bookService.searchBooks(title);
     }
 
+    //GET local books matching a query on title and author, e.g. q=tolk* or q="the hobbit"
+    @GetMapping("/search/local")
+    public List<BookResponseDTO> searchLocal(@RequestParam String q, @RequestParam(defaultValue = "20") int limit){
+        logger.info("GET /books/search/local");
+        return bookService.searchLocal(q, limit);
+    }
+
+    //GET local books by title, topped up from Google Books only when too few are found locally
+    @GetMapping("/search/hybrid")
+    public List<SearchResultDTO> searchHybrid(@RequestParam String title, @RequestParam(defaultValue = "10") int limit){
+        logger.info("GET /books/search/hybrid");
+        return bookService.searchHybrid(title, limit);
+    }
+
     @PostMapping("/addViaAPI")
     public Book addViaAPI(@Valid @RequestBody GoogleApiRequestDTO id){
         return bookService.addViaApi(id);
     }
 
+    //POST a list of Google Books volume ids, imported by a background job; 202 with the job to poll at Location
+    @PostMapping("/addViaAPI/bulk")
+    public ResponseEntity<GoogleImportJobDTO> addViaAPIBulk(@Valid @RequestBody GoogleBulkImportRequestDTO request){
+        logger.info("POST /books/addViaAPI/bulk");
+        GoogleImportJobDTO job = googleImportJobService.submit(request.ids());
+        return ResponseEntity.accepted().location(URI.create("/books/addViaAPI/bulk/" + job.id())).body(job);
+    }
+
+    //GET the state of an import job, with its per-id results once it is DONE
+    @GetMapping("/addViaAPI/bulk/{jobId}")
+    public GoogleImportJobDTO getGoogleImportJob(@PathVariable String jobId){
+        return googleImportJobService.getJob(jobId)
+                .orElseThrow(() -> new NoSuchElementException("Import job " + jobId + " not found"));
+    }
+
+    private static ResponseEntity<BookResponseDTO> withETag(BookResponseDTO book, String representation) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(versionETag(book.version(), representation)).varyBy(HttpHeaders.ACCEPT);
+        if (book.updatedAt() != null) {
+            response.lastModified(book.updatedAt());
+        }
+        return response.body(book);
+    }
+
+    // ETags are weak: Tomcat does not gzip a response with a strong ETag, and a gzipped body is not the
+    // same bytes anyway. Each carries the negotiated format, as JSON, CBOR and Smile bodies differ
+    private static String versionETag(long version, String representation) {
+        return "W/\"" + version + "-" + representation + "\"";
+    }
+
+    // Every change to a book bumps its version, so the ids and versions on a page and the cursor
+    // after it determine the page body
+    private static String pageETag(BookPageDTO page, String representation) {
+        StringBuilder key = new StringBuilder();
+        for (BookResponseDTO book : page.items()) {
+            key.append(book.id()).append(':').append(book.version()).append(',');
+        }
+        key.append(page.nextCursor());
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "-" + representation + "\"";
+    }
+
+    // The format Accept negotiates to, in the order the converters are registered: JSON before CBOR and Smile
+    private static String representation(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "json";
+        }
+        try {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType type : accepted) {
+                if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return "json";
+                }
+                if (type.isCompatibleWith(CBOR)) {
+                    return "cbor";
+                }
+                if (type.isCompatibleWith(SMILE)) {
+                    return "smile";
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // the converters answer 406 for it
+        }
+        return "json";
+    }
+
+    // The version named by a strong If-Match ETag such as "3" (the book's version field) or "3-json"; the
+    // version identifies the book's revision in every format, so any of them may be sent. If-Match compares
+    // strongly, so the weak W/"3-json" a response carries never matches (412). No header or * accepts any version
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new OptimisticLockingFailureException("If-Match needs a strong ETag, a weak one never matches; send the book's version, e.g. \"3\"");
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match must be a single book ETag, e.g. \"3\"");
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int format = value.indexOf('-');
+        try {
+            return Long.parseLong(format < 0 ? value : value.substring(0, format));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be a single book ETag, e.g. \"3\"");
+        }
+    }
+
 }
@@ -1,6 +1,7 @@
 package spring_tasks.spring_project.exceptionHandler;
 
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -32,6 +33,18 @@ public class GloabalExceptionHandler {
         ErrorResponseDTO error=new ErrorResponseDTO("Invalid input format",400);
         return ResponseEntity.status(400).body(error);
     }
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponseDTO> handleIllegalArgument(IllegalArgumentException ex){
+        ErrorResponseDTO error=new ErrorResponseDTO(ex.getMessage(),400);
+        return ResponseEntity.status(400).body(error);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponseDTO> handleStaleVersion(OptimisticLockingFailureException ex){
+        ErrorResponseDTO error=new ErrorResponseDTO(ex.getMessage(),412);
+        return ResponseEntity.status(412).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponseDTO> handleGeneric(Exception ex){
         ErrorResponseDTO error=new ErrorResponseDTO(ex.getMessage(),500);
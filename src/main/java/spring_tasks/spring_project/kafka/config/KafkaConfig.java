@@ -1,14 +1,53 @@
 package spring_tasks.spring_project.kafka.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
+
+// Scheduling drives the outbox relay
 @Configuration
+@EnableScheduling
 public class KafkaConfig {
+
+    @Value("${spring.kafka.topic.name}")
+    private String topic;
+
+    // partitions bound how many listener threads can share the work
+    @Value("${app.kafka.topic.partitions:6}")
+    private int partitions;
+
     @Bean
     public NewTopic notificationTopic() {
-        return TopicBuilder.name("book-notification").partitions(1).replicas(1).build();
+        return TopicBuilder.name(topic).partitions(partitions).replicas(1).build();
+    }
+
+    // the recoverer publishes to the same partition number, so the DLT needs as many partitions
+    @Bean
+    public NewTopic notificationDeadLetterTopic() {
+        return TopicBuilder.name(deadLetterTopic()).partitions(partitions).replicas(1).build();
+    }
+
+    // Picked up by Boot's listener container factory: retry a failed record, then park its raw bytes on the DLT
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(KafkaTemplate<String, byte[]> kafkaTemplate,
+                                                 @Value("${app.kafka.consumer.retry.attempts:2}") long retryAttempts,
+                                                 @Value("${app.kafka.consumer.retry.interval:1s}") Duration retryInterval) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(deadLetterTopic(), record.partition()));
+        return new DefaultErrorHandler(recoverer, new FixedBackOff(retryInterval.toMillis(), retryAttempts));
+    }
+
+    private String deadLetterTopic() {
+        return topic + ".DLT";
     }
 }
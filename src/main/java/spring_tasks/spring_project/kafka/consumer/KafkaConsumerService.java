@@ -1,18 +1,56 @@
 package spring_tasks.spring_project.kafka.consumer;
 
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventDeserializer;
 
+import java.util.List;
+
+/**
+ * Consumes book events in batches. Values arrive as raw bytes and are decoded here, so a record
+ * that is not a valid BookEvent fails like any other and reaches the DLT unchanged. Offsets are
+ * committed once per processed batch; a failing record is reported by index, so the records before
+ * it are committed and the error handler retries it and then moves it to the dead-letter topic.
+ */
 @Service
 public class KafkaConsumerService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaConsumerService.class);
 
-    @KafkaListener(topics = "book-notification", groupId = "book-group")
-    public void listen(String message) {
-        logger.info("Received Notification: {}", message);
+    private final BookEventDeserializer bookEventDeserializer;
+    private final Counter receivedCounter;
+
+    public KafkaConsumerService(BookEventDeserializer bookEventDeserializer, MeterRegistry meterRegistry) {
+        this.bookEventDeserializer = bookEventDeserializer;
+        this.receivedCounter = meterRegistry.counter("books.notifications.received");
+    }
+
+    @KafkaListener(topics = "${spring.kafka.topic.name}", groupId = "book-group")
+    public void listen(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                handle(records.get(i));
+                receivedCounter.increment();
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Could not process notification", e, i);
+            }
+        }
+        ack.acknowledge();
+    }
+
+    private void handle(ConsumerRecord<String, byte[]> record) {
+        BookEvent event = bookEventDeserializer.deserialize(record.topic(), record.value());
+        if (event == null) {
+            throw new IllegalArgumentException("Empty notification at offset " + record.offset());
+        }
+        logger.info("Received {} event for book {}: {} -> {}", event.type(), event.bookId(), event.before(), event.after());
     }
 }
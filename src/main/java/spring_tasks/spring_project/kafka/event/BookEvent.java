@@ -0,0 +1,41 @@
+package spring_tasks.spring_project.kafka.event;
+
+import spring_tasks.spring_project.models.BookImage;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A change to one book as published on the notification topic. {@code before} is the book as it
+ * was (null for CREATED, for partial updates, and for PUT and DELETE when the replaced revision was not cached),
+ * {@code after} the book as it is now (null for DELETED). When {@code changedFields} is not empty the
+ * change was a partial update and {@code after} holds only those fields. {@code version} is the book's revision
+ * after the change, or the revision removed for DELETED, when it is known; {@code timestamp} is
+ * when the change was made, the book's updatedAt for inserts and updates.
+ */
+public record BookEvent(
+        BookEventType type,
+        int bookId,
+        BookImage before,
+        BookImage after,
+        List<String> changedFields,
+        Long version,
+        Instant timestamp
+) {
+
+    public static BookEvent created(int bookId, BookImage after, Long version, Instant timestamp) {
+        return new BookEvent(BookEventType.CREATED, bookId, null, after, List.of(), version, timestamp);
+    }
+
+    public static BookEvent updated(int bookId, BookImage before, BookImage after, Long version, Instant timestamp) {
+        return new BookEvent(BookEventType.UPDATED, bookId, before, after, List.of(), version, timestamp);
+    }
+
+    public static BookEvent patched(int bookId, BookImage changes, List<String> changedFields, Long version, Instant timestamp) {
+        return new BookEvent(BookEventType.UPDATED, bookId, null, changes, changedFields, version, timestamp);
+    }
+
+    public static BookEvent deleted(int bookId, BookImage before, Long version, Instant timestamp) {
+        return new BookEvent(BookEventType.DELETED, bookId, before, null, List.of(), version, timestamp);
+    }
+}
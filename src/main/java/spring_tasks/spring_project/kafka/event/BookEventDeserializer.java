@@ -0,0 +1,82 @@
+package spring_tasks.spring_project.kafka.event;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.stereotype.Component;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads what {@link BookEventSerializer} writes. The writer schema comes from the registry by the
+ * id in the header and is resolved against the current schema, so older events stay readable.
+ */
+@Component
+public class BookEventDeserializer implements Deserializer<BookEvent> {
+
+    private final BookEventSchemaRegistry schemaRegistry;
+    private final Map<Integer, GenericDatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+
+    public BookEventDeserializer(BookEventSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    @Override
+    public BookEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.remaining() < 5 || buffer.get() != BookEventSerializer.MAGIC_BYTE) {
+            throw new SerializationException("Not a BookEvent record");
+        }
+        int schemaId = buffer.getInt();
+        GenericDatumReader<GenericRecord> reader = readers.computeIfAbsent(schemaId,
+                id -> new GenericDatumReader<>(schemaRegistry.getById(id), schemaRegistry.currentSchema()));
+        try {
+            GenericRecord record = reader.read(null, DecoderFactory.get()
+                    .binaryDecoder(data, buffer.position(), buffer.remaining(), null));
+            return fromRecord(record);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not deserialize BookEvent with schema id " + schemaId, e);
+        }
+    }
+
+    private static BookEvent fromRecord(GenericRecord record) {
+        BookEventType type = BookEventType.valueOf(record.get("type").toString());
+        GenericRecord before = (GenericRecord) record.get("before");
+        return new BookEvent(
+                type,
+                (Integer) record.get("bookId"),
+                before != null ? toImage(before) : null,
+                type != BookEventType.DELETED ? toImage(record) : null,
+                ((List<?>) record.get("changedFields")).stream().map(Object::toString).toList(),
+                (Long) record.get("version"),
+                Instant.ofEpochMilli((Long) record.get("timestamp"))
+        );
+    }
+
+    private static BookImage toImage(GenericRecord record) {
+        Integer publishedDate = (Integer) record.get("publishedDate");
+        return new BookImage(
+                text(record.get("title")),
+                text(record.get("author")),
+                publishedDate != null ? LocalDate.ofEpochDay(publishedDate) : null
+        );
+    }
+
+    // Avro hands strings back as Utf8
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,56 @@
+package spring_tasks.spring_project.kafka.event;
+
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for a schema registry. Every BookEvent schema version ships as
+ * {@code avro/book-event-v<n>.avsc} and is registered under id {@code n}, so ids stay stable
+ * across restarts and instances. The highest version is the one written.
+ */
+@Component
+public class BookEventSchemaRegistry {
+
+    private static final int CURRENT_VERSION = 3;
+
+    private final Map<Integer, Schema> schemasById = new ConcurrentHashMap<>();
+
+    public BookEventSchemaRegistry() {
+        for (int version = 1; version <= CURRENT_VERSION; version++) {
+            schemasById.put(version, load("avro/book-event-v" + version + ".avsc"));
+        }
+    }
+
+    public int currentId() {
+        return CURRENT_VERSION;
+    }
+
+    public Schema currentSchema() {
+        return schemasById.get(CURRENT_VERSION);
+    }
+
+    // Writer schema for an id read from a record header
+    public Schema getById(int id) {
+        Schema schema = schemasById.get(id);
+        if (schema == null) {
+            throw new SerializationException("Unknown BookEvent schema id: " + id);
+        }
+        return schema;
+    }
+
+    private static Schema load(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load schema " + path, e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package spring_tasks.spring_project.kafka.event;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.stereotype.Component;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a {@link BookEvent} as Avro binary behind a 5-byte header: a zero magic byte and the
+ * big-endian schema id, the same framing Confluent serializers use.
+ */
+@Component
+public class BookEventSerializer implements Serializer<BookEvent> {
+
+    static final byte MAGIC_BYTE = 0;
+
+    private final int schemaId;
+    private final Schema schema;
+    private final Schema beforeSchema;
+    private final GenericDatumWriter<GenericRecord> writer;
+
+    public BookEventSerializer(BookEventSchemaRegistry schemaRegistry) {
+        this.schemaId = schemaRegistry.currentId();
+        this.schema = schemaRegistry.currentSchema();
+        // the non-null branch of the before union
+        this.beforeSchema = schema.getField("before").schema().getTypes().get(1);
+        this.writer = new GenericDatumWriter<>(schema);
+    }
+
+    @Override
+    public byte[] serialize(String topic, BookEvent event) {
+        if (event == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC_BYTE);
+        out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(schemaId).array());
+        try {
+            BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+            writer.write(toRecord(event), encoder);
+            encoder.flush();
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not serialize BookEvent for book " + event.bookId(), e);
+        }
+        return out.toByteArray();
+    }
+
+    private GenericRecord toRecord(BookEvent event) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("type", new GenericData.EnumSymbol(schema.getField("type").schema(), event.type().name()));
+        record.put("bookId", event.bookId());
+        BookImage after = event.after();
+        if (after != null) {
+            putImage(record, after);
+        }
+        record.put("changedFields", event.changedFields());
+        record.put("version", event.version());
+        record.put("timestamp", event.timestamp().toEpochMilli());
+        if (event.before() != null) {
+            GenericRecord before = new GenericData.Record(beforeSchema);
+            putImage(before, event.before());
+            record.put("before", before);
+        }
+        return record;
+    }
+
+    private static void putImage(GenericRecord record, BookImage image) {
+        record.put("title", image.title());
+        record.put("author", image.author());
+        record.put("publishedDate", image.publishedDate() != null ? (int) image.publishedDate().toEpochDay() : null);
+    }
+}
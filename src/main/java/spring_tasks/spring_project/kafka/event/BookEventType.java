@@ -0,0 +1,7 @@
+package spring_tasks.spring_project.kafka.event;
+
+public enum BookEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
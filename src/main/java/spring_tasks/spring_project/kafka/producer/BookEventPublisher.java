@@ -0,0 +1,40 @@
+package spring_tasks.spring_project.kafka.producer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.models.BookChange;
+
+/**
+ * Hands a book change event to the outbox and, as an application event, to in-process listeners
+ * such as the search index. It must be called inside the transaction that made the change, so the
+ * outbox row commits with it and the listeners only see committed changes.
+ */
+@Component
+public class BookEventPublisher {
+
+    @Autowired
+    private KafkaProducerService notificationProducer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public void publish(BookEvent event) {
+        notificationProducer.publish(event);
+        eventPublisher.publishEvent(event);
+    }
+
+    // Entity writes reported by BookChangeListener; a plain listener runs in the writing transaction
+    @EventListener
+    public void onBookChange(BookChange change) {
+        if (change.before() == null) {
+            publish(BookEvent.created(change.bookId(), change.after(), change.version(), change.timestamp()));
+        } else if (change.after() == null) {
+            publish(BookEvent.deleted(change.bookId(), change.before(), change.version(), change.timestamp()));
+        } else {
+            publish(BookEvent.updated(change.bookId(), change.before(), change.after(), change.version(), change.timestamp()));
+        }
+    }
+}
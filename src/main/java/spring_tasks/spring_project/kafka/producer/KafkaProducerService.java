@@ -1,31 +1,95 @@
 package spring_tasks.spring_project.kafka.producer;
 
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventSerializer;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queues book events in the outbox table inside the transaction that made the change, so an event
+ * exists exactly when its change was committed. Events are published from Hibernate flush callbacks,
+ * where the session cannot take new entities, so they are buffered per transaction and written in
+ * one JDBC batch after the final flush, just before commit. {@link OutboxRelay} sends them.
+ */
 @Service
 public class KafkaProducerService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
 
+    private static final String INSERT_OUTBOX =
+            "insert into outbox_event (topic, message_key, payload, created_at, attempts) values (?, ?, ?, ?, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookEventSerializer bookEventSerializer;
 
     @Value("${spring.kafka.topic.name}")
     private String topic;
 
     @Value("${app.kafka.enabled}")
     private boolean kafkaEnabled;
-    public void sendNotification(String message) {
+
+    // The book id is the key, so a book's events stay on one partition in the order they were made
+    public void publish(BookEvent event) {
         if (!kafkaEnabled) {
-            logger.info("Kafka notification skipped: {}", message);
+            logger.info("Kafka notification skipped: {} book {}", event.type(), event.bookId());
             return;
         }
-        logger.info("Sending notification: {}", message);
-        kafkaTemplate.send(topic, message);
+        logger.info("Queueing {} event for book {}", event.type(), event.bookId());
+        pendingEvents().rows.add(new Object[]{
+                topic, String.valueOf(event.bookId()), bookEventSerializer.serialize(topic, event), Timestamp.from(Instant.now())});
+    }
+
+    private PendingEvents pendingEvents() {
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Book changes must run in a transaction to be published");
+        }
+        PendingEvents created = new PendingEvents();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(KafkaProducerService.this);
+            }
+        });
+        entityManager.unwrap(EventSource.class).getActionQueue().registerProcess(created);
+        return created;
+    }
+
+    // Runs inside Hibernate's commit, after the last flush and on the same connection
+    private class PendingEvents implements BeforeTransactionCompletionProcess {
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_OUTBOX, rows);
+            }
+        }
     }
 }
@@ -0,0 +1,181 @@
+package spring_tasks.spring_project.kafka.producer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring_tasks.spring_project.models.OutboxEvent;
+import spring_tasks.spring_project.repository.OutboxEventRepository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Publishes outbox events to Kafka. Sends are asynchronous, so the producer batches and compresses
+ * them on its own I/O thread; the delivery callbacks decide which rows are deleted and which stay
+ * for the next poll. Delivery is at-least-once: a crash between send and delete resends the batch.
+ * <p>
+ * A batch is sent while its rows are locked with skip locked, so each row goes to one relay even when
+ * several instances poll. Events with the same key (the book id) leave in write order: a batch sends
+ * them in waves, one per key per wave, a failed event holds back the key's later ones until the next
+ * poll, and a key with an older event locked by another relay waits for it. A row that has failed
+ * {@code app.kafka.outbox.max-attempts} times is parked, so it no longer blocks its key.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+
+    @Value("${app.kafka.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.kafka.outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Autowired
+    public OutboxRelay(KafkaTemplate<String, byte[]> kafkaTemplate,
+                       OutboxEventRepository outboxEventRepository,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sentCounter = meterRegistry.counter("books.notifications.sent");
+        this.failedCounter = meterRegistry.counter("books.notifications.failed");
+        this.parkedCounter = meterRegistry.counter("books.notifications.parked");
+    }
+
+    // Publish pending events until the outbox is drained or a send fails
+    @Scheduled(fixedDelayString = "${app.kafka.outbox.poll-interval:500ms}")
+    public void relayPending() {
+        int published;
+        do {
+            published = relayBatch();
+        } while (published == batchSize);
+    }
+
+    // Lock, send and settle one batch in a single transaction; returns how many events were delivered,
+    // or 0 when any were not, so the next batch waits for the next poll
+    int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxEventRepository.lockPending(Limit.of(batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+            Map<OutboxEvent, String> failed = new ConcurrentHashMap<>();
+            Map<String, Queue<OutboxEvent>> byKey = byKey(events);
+            int heldBack = events.size();
+            while (!byKey.isEmpty()) {
+                Map<String, OutboxEvent> wave = new LinkedHashMap<>();
+                byKey.forEach((key, pending) -> wave.put(key, pending.remove()));
+                send(wave.values(), delivered, failed);
+                heldBack -= wave.size();
+                // a key whose event failed sends nothing more this batch
+                byKey.entrySet().removeIf(entry -> entry.getValue().isEmpty() || failed.containsKey(wave.get(entry.getKey())));
+            }
+            settle(delivered, failed);
+            if (!failed.isEmpty() || heldBack > 0) {
+                logger.warn("{} of {} notifications not delivered, retrying on next poll: {}", events.size() - delivered.size(),
+                        events.size(), failed.isEmpty() ? "waiting for an earlier event of the same book" : failed.values().iterator().next());
+                return 0;
+            }
+            logger.debug("Published {} notifications", delivered.size());
+            return delivered.size();
+        });
+        return published != null ? published : 0;
+    }
+
+    // Pending events per key in id order, without the keys that must wait for an older event
+    private Map<String, Queue<OutboxEvent>> byKey(List<OutboxEvent> events) {
+        Map<String, Queue<OutboxEvent>> byKey = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            byKey.computeIfAbsent(keyOf(event), key -> new ArrayDeque<>()).add(event);
+            ids.add(event.getId());
+        }
+        Set<String> keys = new HashSet<>();
+        events.forEach(event -> {
+            if (event.getMessageKey() != null) {
+                keys.add(event.getMessageKey());
+            }
+        });
+        if (!keys.isEmpty()) {
+            long last = events.get(events.size() - 1).getId();
+            outboxEventRepository.findKeysPendingBefore(keys, last, ids).forEach(byKey::remove);
+        }
+        return byKey;
+    }
+
+    private void send(Collection<OutboxEvent> wave, Queue<Long> delivered, Map<OutboxEvent, String> failed) {
+        List<CompletableFuture<?>> sends = new ArrayList<>(wave.size());
+        for (OutboxEvent event : wave) {
+            CompletableFuture<?> send;
+            try {
+                send = kafkaTemplate.send(new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload()));
+            } catch (RuntimeException e) {
+                // metadata or buffer wait timed out before the record was accepted
+                send = CompletableFuture.failedFuture(e);
+            }
+            sends.add(send.whenComplete((result, ex) -> {
+                if (ex == null) {
+                    delivered.add(event.getId());
+                    sentCounter.increment();
+                } else {
+                    failed.put(event, String.valueOf(ex.getMessage()));
+                    failedCounter.increment();
+                }
+            }));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).handle((ignored, ex) -> null).join();
+    }
+
+    private void settle(Queue<Long> delivered, Map<OutboxEvent, String> failed) {
+        outboxEventRepository.deleteAllByIdInBatch(delivered);
+        if (failed.isEmpty()) {
+            return;
+        }
+        failed.forEach((event, error) -> {
+            event.recordFailure(error);
+            if (event.getAttempts() >= maxAttempts) {
+                event.park();
+                parkedCounter.increment();
+                logger.error("Parked notification {} for key {} after {} failed attempts: {}",
+                        event.getId(), event.getMessageKey(), event.getAttempts(), error);
+            }
+        });
+        outboxEventRepository.saveAll(failed.keySet());
+    }
+
+    // Events without a key have no order to keep, each gets a wave slot of its own
+    private static String keyOf(OutboxEvent event) {
+        return event.getMessageKey() != null ? event.getMessageKey() : "#" + event.getId();
+    }
+}
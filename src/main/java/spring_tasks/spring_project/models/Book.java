@@ -1,18 +1,41 @@
 package spring_tasks.spring_project.models;
 
 import jakarta.persistence.*;
+
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
+// each index ends in id so a filtered keyset page is one ordered range scan
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_author", columnList = "author, id"),
+        @Index(name = "idx_book_title", columnList = "title, id"),
+        @Index(name = "idx_book_published_date", columnList = "publishedDate, id")
+})
+@EntityListeners(BookChangeListener.class)
 public class Book {
 
+    // pooled sequence so Hibernate can assign ids up front and batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private int id;
     private String title;
     private String author;
     private LocalDate publishedDate;
 
+    // optimistic lock: every update bumps it, and clients send it back as If-Match
+    @Version
+    private long version;
+
+    // time of the last write, served as Last-Modified
+    private Instant updatedAt;
+
+    // fields as last loaded or written, the before image of the next change event
+    @Transient
+    private BookImage loadedState;
+
     public Book(){}
 
     public Book( String title, String author, LocalDate publishedDate){
@@ -50,4 +73,39 @@ public class Book {
         this.publishedDate= publishedDate;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = currentTimestamp();
+    }
+
+    // Now, at the microsecond precision the column keeps, so a value written is the value read back
+    public static Instant currentTimestamp() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public BookImage getLoadedState() {
+        return loadedState;
+    }
+
+    public void setLoadedState(BookImage loadedState) {
+        this.loadedState = loadedState;
+    }
+
 }
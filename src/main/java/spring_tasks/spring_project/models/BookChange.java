@@ -0,0 +1,11 @@
+package spring_tasks.spring_project.models;
+
+import java.time.Instant;
+
+/**
+ * A write to one managed {@link Book}, published by {@link BookChangeListener} as an application event.
+ * {@code before} is null for an insert and {@code after} for a delete; {@code version} is the book's
+ * revision after the write, or the revision removed by a delete.
+ */
+public record BookChange(int bookId, BookImage before, BookImage after, Long version, Instant timestamp) {
+}
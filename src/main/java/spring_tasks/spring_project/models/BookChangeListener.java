@@ -0,0 +1,48 @@
+package spring_tasks.spring_project.models;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes a {@link BookChange} for every insert, update and delete of a managed {@link Book}; the
+ * state captured when the row was loaded or last written is the before image. The events are delivered
+ * synchronously inside the writing transaction, where the producer turns them into outbox rows. JPQL
+ * updates and deletes skip it, and their callers publish the change themselves.
+ * Hibernate takes the instance from the Spring context, which is why it is a component.
+ */
+@Component
+public class BookChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    void onLoad(Book book) {
+        book.setLoadedState(BookImage.of(book));
+    }
+
+    @PostPersist
+    void onInsert(Book book) {
+        BookImage after = BookImage.of(book);
+        eventPublisher.publishEvent(new BookChange(book.getId(), null, after, book.getVersion(), book.getUpdatedAt()));
+        book.setLoadedState(after);
+    }
+
+    @PostUpdate
+    void onUpdate(Book book) {
+        BookImage after = BookImage.of(book);
+        eventPublisher.publishEvent(new BookChange(book.getId(), book.getLoadedState(), after, book.getVersion(), book.getUpdatedAt()));
+        book.setLoadedState(after);
+    }
+
+    @PostRemove
+    void onDelete(Book book) {
+        BookImage before = book.getLoadedState() != null ? book.getLoadedState() : BookImage.of(book);
+        eventPublisher.publishEvent(new BookChange(book.getId(), before, null, book.getVersion(), Book.currentTimestamp()));
+    }
+}
@@ -0,0 +1,11 @@
+package spring_tasks.spring_project.models;
+
+import java.time.LocalDate;
+
+// The fields of a book at one moment, used as the before and after image of change events
+public record BookImage(String title, String author, LocalDate publishedDate) {
+
+    public static BookImage of(Book book) {
+        return new BookImage(book.getTitle(), book.getAuthor(), book.getPublishedDate());
+    }
+}
@@ -0,0 +1,76 @@
+package spring_tasks.spring_project.models;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// A notification waiting to be published; written in the same transaction as the change it describes
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    // rows are inserted with plain JDBC batches, the database assigns ids in insert order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    private String topic;
+    private String messageKey;
+    @Column(length = 4000)
+    private byte[] payload;
+    private Instant createdAt;
+    private int attempts;
+    @Column(length = 1000)
+    private String lastError;
+    // set once the relay gives up on the row; parked rows are kept for inspection but never sent
+    private Instant parkedAt;
+
+    public OutboxEvent(){}
+
+    public OutboxEvent(String topic, String messageKey, byte[] payload){
+        this.topic=topic;
+        this.messageKey=messageKey;
+        this.payload=payload;
+        this.createdAt=Instant.now();
+    }
+
+    public long getId(){
+        return id;
+    }
+
+    public String getTopic(){
+        return topic;
+    }
+
+    public String getMessageKey(){
+        return messageKey;
+    }
+
+    public byte[] getPayload(){
+        return payload;
+    }
+
+    public Instant getCreatedAt(){
+        return createdAt;
+    }
+
+    public int getAttempts(){
+        return attempts;
+    }
+
+    public String getLastError(){
+        return lastError;
+    }
+
+    public Instant getParkedAt(){
+        return parkedAt;
+    }
+
+    public void recordFailure(String error){
+        this.attempts++;
+        this.lastError=error;
+    }
+
+    public void park(){
+        this.parkedAt=Instant.now();
+    }
+
+}
@@ -0,0 +1,18 @@
+package spring_tasks.spring_project.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Optional restrictions for a page of books; a null field does not restrict. {@code from} and
+ * {@code to} bound the published date inclusively.
+ */
+public record BookFilter(String author, String title, LocalDate from, LocalDate to) {
+
+    public static final BookFilter NONE = new BookFilter(null, null, null, null);
+
+    public BookFilter {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package spring_tasks.spring_project.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fields a JSON Merge Patch (RFC 7396) sets on a book. {@code fields} names them in column
+ * order and {@code changes} holds their new values; every other field of {@code changes} is null
+ * and stays as it is. A field set to null is kept as a change to null, so validating the patched
+ * values ({@link #valueOf}) reports it like a missing field in a PUT.
+ */
+public record BookPatch(BookImage changes, List<String> fields) {
+
+    public static final String TITLE = "title";
+    public static final String AUTHOR = "author";
+    public static final String PUBLISHED_DATE = "publishedDate";
+
+    private static final List<String> FIELDS = List.of(TITLE, AUTHOR, PUBLISHED_DATE);
+
+    // Read a merge patch document; only its shape is checked here, the values are validated by the service
+    public static BookPatch fromMergePatch(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Patch must be a JSON object");
+        }
+        List<String> present = new ArrayList<>();
+        patch.fieldNames().forEachRemaining(present::add);
+        for (String field : present) {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+        }
+        if (present.isEmpty()) {
+            throw new IllegalArgumentException("Patch changes no fields");
+        }
+
+        String title = patch.has(TITLE) ? text(patch, TITLE) : null;
+        String author = patch.has(AUTHOR) ? text(patch, AUTHOR) : null;
+        LocalDate publishedDate = patch.has(PUBLISHED_DATE) ? date(patch) : null;
+        return new BookPatch(new BookImage(title, author, publishedDate), FIELDS.stream().filter(present::contains).toList());
+    }
+
+    // The new value of one patched field, by its BookRequestDTO property name
+    public Object valueOf(String field) {
+        return switch (field) {
+            case TITLE -> changes.title();
+            case AUTHOR -> changes.author();
+            case PUBLISHED_DATE -> changes.publishedDate();
+            default -> throw new IllegalArgumentException("Unknown field: " + field);
+        };
+    }
+
+    private static String text(JsonNode patch, String field) {
+        JsonNode value = patch.get(field);
+        if (value.isNull()) {
+            return null;
+        }
+        if (!value.isTextual()) {
+            throw new IllegalArgumentException("Invalid input format: " + field);
+        }
+        return value.asText();
+    }
+
+    private static LocalDate date(JsonNode patch) {
+        JsonNode value = patch.get(PUBLISHED_DATE);
+        if (value.isNull()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.asText());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid input format: " + PUBLISHED_DATE);
+        }
+    }
+}
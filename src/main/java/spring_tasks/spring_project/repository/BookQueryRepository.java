@@ -0,0 +1,19 @@
+package spring_tasks.spring_project.repository;
+
+import org.springframework.data.domain.Sort;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+
+import java.time.Instant;
+import java.util.List;
+
+// Queries built from optional criteria, which derived query methods cannot express
+public interface BookQueryRepository {
+
+    // One keyset page ordered by id, read straight into DTOs; afterId is null for the first page
+    List<BookResponseDTO> findPage(BookFilter filter, Integer afterId, Sort.Direction direction, int limit);
+
+    // Set only the patched columns, bump the version and stamp updatedAt in one statement, at
+    // expectedVersion when it is not null; returns the rows updated. Like the other JPQL writes it
+    // skips the entity listeners
+    int patch(int id, Long expectedVersion, BookPatch patch, Instant updatedAt);
+}
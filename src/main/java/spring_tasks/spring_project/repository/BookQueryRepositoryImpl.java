@@ -0,0 +1,87 @@
+package spring_tasks.spring_project.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.models.Book;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Only the criteria that are present become predicates, so the database sees a plain
+ * {@code author = ? and id > ?} it can answer from the matching {@code (column, id)} index,
+ * instead of {@code (? is null or author = ?)} which defeats index selection. Rows are
+ * selected into {@link BookResponseDTO} without creating managed entities.
+ */
+class BookQueryRepositoryImpl implements BookQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookResponseDTO> findPage(BookFilter filter, Integer afterId, Sort.Direction direction, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookResponseDTO> query = cb.createQuery(BookResponseDTO.class);
+        Root<Book> book = query.from(Book.class);
+        Path<Integer> id = book.get("id");
+        Path<LocalDate> publishedDate = book.get("publishedDate");
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.author() != null) {
+            where.add(cb.equal(book.get("author"), filter.author()));
+        }
+        if (filter.title() != null) {
+            where.add(cb.equal(book.get("title"), filter.title()));
+        }
+        if (filter.from() != null) {
+            where.add(cb.greaterThanOrEqualTo(publishedDate, filter.from()));
+        }
+        if (filter.to() != null) {
+            where.add(cb.lessThanOrEqualTo(publishedDate, filter.to()));
+        }
+        if (afterId != null) {
+            where.add(direction.isAscending() ? cb.greaterThan(id, afterId) : cb.lessThan(id, afterId));
+        }
+
+        query.select(cb.construct(BookResponseDTO.class, id, book.get("title"), book.get("author"), publishedDate, book.get("version"), book.get("updatedAt")))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(direction.isAscending() ? cb.asc(id) : cb.desc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public int patch(int id, Long expectedVersion, BookPatch patch, Instant updatedAt) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+        Root<Book> book = update.from(Book.class);
+        Path<Long> version = book.get("version");
+
+        // columns the patch leaves alone are not in the SET clause at all
+        for (String field : patch.fields()) {
+            switch (field) {
+                case BookPatch.TITLE -> update.set(book.<String>get(field), patch.changes().title());
+                case BookPatch.AUTHOR -> update.set(book.<String>get(field), patch.changes().author());
+                case BookPatch.PUBLISHED_DATE -> update.set(book.<LocalDate>get(field), patch.changes().publishedDate());
+                default -> throw new IllegalArgumentException("Unknown field: " + field);
+            }
+        }
+        update.set(version, cb.sum(version, 1L));
+        update.set(book.<Instant>get("updatedAt"), updatedAt);
+
+        Predicate where = cb.equal(book.get("id"), id);
+        if (expectedVersion != null) {
+            where = cb.and(where, cb.equal(version, expectedVersion));
+        }
+        return entityManager.createQuery(update.where(where)).executeUpdate();
+    }
+}
@@ -1,8 +1,49 @@
 package spring_tasks.spring_project.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.dto.BookVersionDTO;
 import spring_tasks.spring_project.models.Book;
 
-public interface BookRepository extends JpaRepository<Book,Integer> {
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BookRepository extends JpaRepository<Book,Integer>, BookQueryRepository {
+
+    // Server-side cursor for full exports; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAllOrderById();
+
+    // The same cursor as plain DTOs, for readers that never write: nothing lands in the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new spring_tasks.spring_project.dto.BookResponseDTO(b.id, b.title, b.author, b.publishedDate, b.version, b.updatedAt) "
+            + "from Book b order by b.id")
+    Stream<BookResponseDTO> streamAllResponsesOrderById();
+
+    // Single-statement writes guarded by the version; each returns the number of rows it changed.
+    // They bypass the entity listeners, so the caller publishes the change event
+    @Modifying
+    @Query("update Book b set b.title = :title, b.author = :author, b.publishedDate = :publishedDate, "
+            + "b.version = b.version + 1, b.updatedAt = :updatedAt where b.id = :id and b.version = :version")
+    int updateByIdAndVersion(int id, long version, String title, String author, LocalDate publishedDate, Instant updatedAt);
+
+    @Modifying
+    @Query("delete from Book b where b.id = :id and b.version = :version")
+    int removeByIdAndVersion(int id, long version);
+
+    // Just the validators of one book, for revalidating a client copy without reading the book
+    @Query("select new spring_tasks.spring_project.dto.BookVersionDTO(b.version, b.updatedAt) from Book b where b.id = :id")
+    Optional<BookVersionDTO> findVersionDTOById(int id);
 
 }
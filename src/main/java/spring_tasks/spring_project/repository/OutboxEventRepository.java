@@ -0,0 +1,33 @@
+package spring_tasks.spring_project.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import spring_tasks.spring_project.models.OutboxEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent,Long> {
+
+    // Oldest pending events first so records keep their write order. Rows are locked until the
+    // transaction ends (select ... for update skip locked), so relays on other instances take the
+    // rows after them instead of sending the same ones
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    // -2 is LockOptions.SKIP_LOCKED
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select e from OutboxEvent e where e.parkedAt is null order by e.id")
+    List<OutboxEvent> lockPending(Limit limit);
+
+    // Keys of the given events that still have an older pending event outside them, e.g. one locked by
+    // another relay; sending those keys now would overtake it
+    @Query("select distinct e.messageKey from OutboxEvent e where e.messageKey in :keys and e.id < :before "
+            + "and e.id not in :ids and e.parkedAt is null")
+    List<String> findKeysPendingBefore(Collection<String> keys, long before, Collection<Long> ids);
+
+}
@@ -0,0 +1,328 @@
+package spring_tasks.spring_project.search;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventType;
+import spring_tasks.spring_project.models.BookImage;
+import spring_tasks.spring_project.repository.BookPatch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * In-process Lucene index over book titles and authors. It is rebuilt from the table on startup
+ * and then follows every committed {@link BookEvent}; searches run on a near-real-time reader of
+ * the writer and answer from stored fields, without touching the database or the network.
+ * Writes do not reopen the reader themselves: a background thread does so at most every
+ * {@code app.search.refresh-interval}, so a burst of changes costs one reopen instead of one each.
+ * With {@code app.search.index-dir} unset the index lives on the heap.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String AUTHOR = "author";
+    private static final String PUBLISHED_DATE = "publishedDate";
+    private static final String VERSION = "version";
+    private static final String UPDATED_AT = "updatedAt";
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    // sequence number of the latest write, which patch waits for before reading stored fields
+    private final AtomicLong lastWrite = new AtomicLong(-1);
+    // writes to one book are serialized so a patch's read-modify-write cannot interleave with another
+    // change to the same book; books in different stripes are written in parallel
+    private final ReentrantLock[] bookLocks = new ReentrantLock[64];
+    // the indexed version of every book, so a late event is dropped without reopening the reader to read it
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+    // changes share the read lock and rebuild takes the write lock, so a rebuild never clears away a change
+    // applied while it runs
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public BookSearchIndex(@Value("${app.search.index-dir:}") String indexDir,
+                           @Value("${app.search.refresh-interval:1s}") Duration refreshInterval) throws IOException {
+        this.directory = indexDir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+        // the table is the source of truth, so an index left by a previous run is discarded
+        this.writer = new IndexWriter(directory,
+                new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+        this.searcherManager = new SearcherManager(writer, null);
+        for (int i = 0; i < bookLocks.length; i++) {
+            bookLocks[i] = new ReentrantLock();
+        }
+        // reopens every refreshInterval, or within 25ms while someone waits for a generation
+        double maxStaleSec = refreshInterval.toNanos() / 1e9;
+        this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, maxStaleSec,
+                Math.min(maxStaleSec, 0.025));
+        reopenThread.setName("book-search-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+    }
+
+    // Apply a committed change; an index failure is logged rather than failing the request that made it
+    @TransactionalEventListener
+    public void onBookChanged(BookEvent event) {
+        try {
+            if (event.type() == BookEventType.DELETED) {
+                delete(event.bookId());
+            } else if (!event.changedFields().isEmpty()) {
+                patch(event.bookId(), event.after(), event.changedFields(), event.version(), event.timestamp());
+            } else {
+                index(event.bookId(), event.after(), event.version(), event.timestamp());
+            }
+        } catch (UncheckedIOException e) {
+            logger.error("Could not index {} of book {}", event.type(), event.bookId(), e);
+        }
+    }
+
+    // Index the whole book; like a partial change, a version not newer than the indexed one is dropped
+    public void index(int id, BookImage book, long version, Instant updatedAt) {
+        withBookLock(id, () -> {
+            if (isNewer(id, version)) {
+                write(id, book, version, updatedAt);
+            }
+        });
+    }
+
+    // Apply a partial change over the stored fields; a book missing from the index waits for the next rebuild,
+    // and a change older than the stored version (events of concurrent commits can arrive out of order) is dropped
+    public void patch(int id, BookImage changes, List<String> fields, long version, Instant updatedAt) {
+        withBookLock(id, () -> {
+            if (!isNewer(id, version)) {
+                return;
+            }
+            awaitWrites();
+            List<BookResponseDTO> current = search(new TermQuery(new Term(ID, String.valueOf(id))), 1);
+            if (current.isEmpty()) {
+                return;
+            }
+            BookResponseDTO book = current.get(0);
+            write(id, new BookImage(
+                    fields.contains(BookPatch.TITLE) ? changes.title() : book.title(),
+                    fields.contains(BookPatch.AUTHOR) ? changes.author() : book.author(),
+                    fields.contains(BookPatch.PUBLISHED_DATE) ? changes.publishedDate() : book.publishedDate()
+            ), version, updatedAt);
+        });
+    }
+
+    public void delete(int id) {
+        withBookLock(id, () -> {
+            try {
+                written(writer.deleteDocuments(new Term(ID, String.valueOf(id))));
+                versions.remove(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Replace the whole index with the books streamed by the supplier. Changes wait while it runs, and the
+    // stream is only opened once the index is cleared, so every committed change is either read by the
+    // stream or applied after it, where the version check drops it if the stream already had it
+    public long rebuild(Supplier<Stream<BookResponseDTO>> books) {
+        rebuildLock.writeLock().lock();
+        try {
+            writer.deleteAll();
+            versions.clear();
+            long count = 0;
+            try (Stream<BookResponseDTO> rows = books.get()) {
+                for (BookResponseDTO book : (Iterable<BookResponseDTO>) rows::iterator) {
+                    BookImage image = new BookImage(book.title(), book.author(), book.publishedDate());
+                    writer.addDocument(toDocument(book.id(), image, book.version(), book.updatedAt()));
+                    versions.put(book.id(), book.version());
+                    count++;
+                }
+            }
+            written(writer.commit());
+            searcherManager.maybeRefreshBlocking();
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    // Make every write so far searchable now instead of at the next scheduled reopen
+    public void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lucene query syntax over title and author: terms must all match, tolk* for prefixes,
+    // tolkein~ for fuzzy matches, "the hobbit" for phrases, author:austen for one field
+    public List<BookResponseDTO> search(String text, int limit) {
+        return search(parse(text), limit);
+    }
+
+    // Books whose title contains every word of the given text; the text is taken literally
+    public List<BookResponseDTO> searchTitle(String title, int limit) {
+        Query query = new QueryBuilder(analyzer).createBooleanQuery(TITLE, title, BooleanClause.Occur.MUST);
+        return query != null ? search(query, limit) : List.of();
+    }
+
+    private List<BookResponseDTO> search(Query query, int limit) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                StoredFields storedFields = searcher.storedFields();
+                List<BookResponseDTO> hits = new ArrayList<>();
+                for (ScoreDoc scoreDoc : searcher.search(query, limit).scoreDocs) {
+                    hits.add(toResponse(storedFields.document(scoreDoc.doc)));
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        reopenThread.close();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void write(int id, BookImage book, long version, Instant updatedAt) {
+        try {
+            written(writer.updateDocument(new Term(ID, String.valueOf(id)), toDocument(id, book, version, updatedAt)));
+            versions.put(id, version);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Run a change to one book under its stripe lock, outside any rebuild
+    private void withBookLock(int id, Runnable change) {
+        rebuildLock.readLock().lock();
+        ReentrantLock lock = bookLocks[Math.floorMod(id, bookLocks.length)];
+        lock.lock();
+        try {
+            change.run();
+        } finally {
+            lock.unlock();
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private boolean isNewer(int id, long version) {
+        Long indexed = versions.get(id);
+        return indexed == null || indexed < version;
+    }
+
+    private void written(long sequenceNumber) {
+        lastWrite.accumulateAndGet(sequenceNumber, Math::max);
+    }
+
+    // Wait for the reader to include the latest write; the reopen thread speeds up while anyone waits
+    private void awaitWrites() {
+        long generation = lastWrite.get();
+        if (generation < 0) {
+            return;
+        }
+        try {
+            reopenThread.waitForGeneration(generation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the search index", e);
+        }
+    }
+
+    private Query parse(String text) {
+        QueryParser parser = new MultiFieldQueryParser(new String[]{TITLE, AUTHOR}, analyzer);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(text);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query: " + text);
+        }
+    }
+
+    private static Document toDocument(int id, BookImage book, long version, Instant updatedAt) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        if (book.title() != null) {
+            document.add(new TextField(TITLE, book.title(), Field.Store.YES));
+        }
+        if (book.author() != null) {
+            document.add(new TextField(AUTHOR, book.author(), Field.Store.YES));
+        }
+        if (book.publishedDate() != null) {
+            document.add(new StoredField(PUBLISHED_DATE, book.publishedDate().toString()));
+        }
+        document.add(new StoredField(VERSION, version));
+        if (updatedAt != null) {
+            document.add(new StoredField(UPDATED_AT, updatedAt.toString()));
+        }
+        return document;
+    }
+
+    private static BookResponseDTO toResponse(Document document) {
+        String publishedDate = document.get(PUBLISHED_DATE);
+        String updatedAt = document.get(UPDATED_AT);
+        return new BookResponseDTO(
+                Integer.parseInt(document.get(ID)),
+                document.get(TITLE),
+                document.get(AUTHOR),
+                publishedDate != null ? LocalDate.parse(publishedDate) : null,
+                document.getField(VERSION).numericValue().longValue(),
+                updatedAt != null ? Instant.parse(updatedAt) : null
+        );
+    }
+}
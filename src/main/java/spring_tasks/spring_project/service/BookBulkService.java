@@ -0,0 +1,233 @@
+package spring_tasks.spring_project.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import spring_tasks.spring_project.client.GoogleBooksClient;
+import spring_tasks.spring_project.client.GoogleVolumeMapper;
+import spring_tasks.spring_project.dto.BookRequestDTO;
+import spring_tasks.spring_project.dto.BulkImportResponseDTO;
+import spring_tasks.spring_project.dto.BulkItemResultDTO;
+import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+import spring_tasks.spring_project.models.Book;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class BookBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookBulkService.class);
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private GoogleBooksClient googleBooksClient;
+
+    @Autowired
+    private GoogleVolumeMapper googleVolumeMapper;
+
+    @Value("${app.books.bulk.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.books.google-import.concurrency:8}")
+    private int googleImportConcurrency = 8;
+
+    @Value("${app.books.google-import.max-ids:10000}")
+    private int googleImportMaxIds = 10000;
+
+    // Import a JSON array of books
+    public BulkImportResponseDTO importBooks(List<BookRequestDTO> books) {
+        logger.info("Bulk importing {} books", books.size());
+        BulkRun run = new BulkRun();
+        books.forEach(run::accept);
+        return finish(run);
+    }
+
+    // Import newline-delimited JSON, one book per line, without holding the whole body in memory
+    public BulkImportResponseDTO importNdjson(InputStream body) throws IOException {
+        logger.info("Bulk importing books from NDJSON");
+        BulkRun run = new BulkRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.accept(objectMapper.readValue(line, BookRequestDTO.class));
+            } catch (JsonProcessingException e) {
+                run.reject("Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return finish(run);
+    }
+
+    // Import volumes from Google Books by id, fetching a bounded number at a time; the client's import quota
+    // keeps the calls inside their share of the API quota and a failing id is reported without stopping the rest
+    public BulkImportResponseDTO importFromGoogle(List<String> volumeIds) {
+        checkGoogleImportSize(volumeIds);
+        logger.info("Importing {} volumes from Google Books", volumeIds.size());
+        BulkRun run = new BulkRun();
+        // results come back in input order while later fetches are still in flight, chunks are written as they fill
+        Flux.fromIterable(volumeIds)
+                .flatMapSequential(this::fetchVolume, googleImportConcurrency)
+                .toIterable()
+                .forEach(fetched -> {
+                    if (fetched.book() != null) {
+                        run.accept(fetched.book());
+                    } else {
+                        run.skip(fetched.status(), fetched.error());
+                    }
+                });
+        return finish(run);
+    }
+
+    public void checkGoogleImportSize(List<String> volumeIds) {
+        if (volumeIds.size() > googleImportMaxIds) {
+            throw new IllegalArgumentException("At most " + googleImportMaxIds + " volume ids per import");
+        }
+    }
+
+    private Mono<VolumeFetch> fetchVolume(String volumeId) {
+        String cleanId = volumeId == null ? "" : volumeId.replaceAll("^\"|\"$", "");
+        if (cleanId.isBlank()) {
+            return Mono.just(new VolumeFetch(null, "REJECTED", "Volume id is empty"));
+        }
+        return googleBooksClient.importVolume(cleanId)
+                .map(body -> toBookRequest(cleanId, body))
+                .defaultIfEmpty(new VolumeFetch(null, "NOT_FOUND", "No book found for id: " + cleanId))
+                .onErrorResume(NoSuchElementException.class, e -> Mono.just(new VolumeFetch(null, "NOT_FOUND", e.getMessage())))
+                .onErrorResume(e -> {
+                    logger.warn("Google Books import of {} failed: {}", cleanId, e.toString());
+                    return Mono.just(new VolumeFetch(null, "FAILED", e.getMessage() != null ? e.getMessage() : e.toString()));
+                });
+    }
+
+    private VolumeFetch toBookRequest(String volumeId, byte[] body) {
+        GoogleApiResponseDTO googleResponse = googleVolumeMapper.readVolume(body)
+                .orElseThrow(() -> new NoSuchElementException("No book found for id: " + volumeId));
+        BookRequestDTO book = new BookRequestDTO(googleResponse.title(), googleResponse.author().get(0), googleResponse.publishedDate());
+        return new VolumeFetch(book, null, null);
+    }
+
+    private BulkImportResponseDTO finish(BulkRun run) {
+        run.flushPending();
+        logger.info("Bulk import done, created:{} rejected:{}", run.created, run.rejected);
+        if (run.created > 0) {
+            // one counter update per import instead of per book
+            meterRegistry.counter("books.added.count").increment(run.created);
+        }
+        return new BulkImportResponseDTO(run.created, run.rejected, run.results);
+    }
+
+    // Insert one chunk in its own transaction; Hibernate groups the inserts into JDBC batches.
+    // BookChangeListener queues the chunk's events, which commit or roll back with its rows.
+    private void persistChunk(List<Book> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            chunk.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private class BulkRun {
+        private final List<BulkItemResultDTO> results = new ArrayList<>();
+        private final List<Book> pending = new ArrayList<>();
+        private final List<Integer> pendingIndexes = new ArrayList<>();
+        private int index;
+        private int created;
+        private int rejected;
+
+        void accept(BookRequestDTO dto) {
+            if (dto == null) {
+                reject("Record is empty");
+                return;
+            }
+            Set<ConstraintViolation<BookRequestDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                reject(violations.stream()
+                        .map(v -> v.getPropertyPath() + " : " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                return;
+            }
+            pending.add(new Book(dto.title(), dto.author(), dto.publishedDate()));
+            pendingIndexes.add(index++);
+            // placeholder, replaced once the chunk is written
+            results.add(null);
+            if (pending.size() >= batchSize) {
+                flushPending();
+            }
+        }
+
+        void reject(String error) {
+            skip("REJECTED", error);
+        }
+
+        void skip(String status, String error) {
+            results.add(new BulkItemResultDTO(index++, null, status, error));
+            rejected++;
+        }
+
+        void flushPending() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                persistChunk(pending);
+                for (int i = 0; i < pending.size(); i++) {
+                    int recordIndex = pendingIndexes.get(i);
+                    results.set(recordIndex, new BulkItemResultDTO(recordIndex, pending.get(i).getId(), "CREATED", null));
+                }
+                created += pending.size();
+            } catch (RuntimeException e) {
+                logger.warn("Bulk chunk of {} books failed: {}", pending.size(), e.getMessage());
+                for (int recordIndex : pendingIndexes) {
+                    results.set(recordIndex, new BulkItemResultDTO(recordIndex, null, "FAILED", e.getMessage()));
+                }
+                rejected += pending.size();
+            }
+            pending.clear();
+            pendingIndexes.clear();
+        }
+    }
+
+    // Outcome of one Google Books fetch: either a book to validate and persist, or a status and error
+    private record VolumeFetch(BookRequestDTO book, String status, String error) {}
+}
@@ -0,0 +1,33 @@
+package spring_tasks.spring_project.service;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination over {@code Book.id}.
+ * Encodes the last id of the previous page and the sort direction it was read in.
+ */
+record BookCursor(int lastId, Sort.Direction direction) {
+
+    String encode() {
+        String raw = (direction.isAscending() ? "a" : "d") + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static BookCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            if (parts.length != 2 || !(parts[0].equals("a") || parts[0].equals("d"))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Sort.Direction direction = parts[0].equals("a") ? Sort.Direction.ASC : Sort.Direction.DESC;
+            return new BookCursor(Integer.parseInt(parts[1]), direction);
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException and bad Base64
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,30 +1,51 @@
 package spring_tasks.spring_project.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import spring_tasks.spring_project.cache.BookCache;
+import spring_tasks.spring_project.cache.GoogleSearchCache;
+import spring_tasks.spring_project.client.GoogleBooksClient;
+import spring_tasks.spring_project.client.GoogleVolumeMapper;
 import spring_tasks.spring_project.dto.*;
-import spring_tasks.spring_project.kafka.producer.KafkaProducerService;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.producer.BookEventPublisher;
 import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.models.BookImage;
+import spring_tasks.spring_project.repository.BookFilter;
+import spring_tasks.spring_project.repository.BookPatch;
 import spring_tasks.spring_project.repository.BookRepository;
+import spring_tasks.spring_project.search.BookSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.LongToIntFunction;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,30 +59,108 @@ public class BookService {
     private BookRepository bookRepository;
 
     @Autowired
-    private KafkaProducerService notificationProducer;
+    private BookCache bookCache;
+
+    @Autowired
+    private GoogleSearchCache googleSearchCache;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private BookSearchIndex bookSearchIndex;
 
-    @Value("${google.api.base-url}")
-    private String baseURL;
+    @Autowired
+    private BookEventPublisher bookEventPublisher;
 
-    @Value("${google.api.key}")
-    private String googleApiKey;
+    @Autowired
+    private GoogleBooksClient googleBooksClient;
+
+    @Autowired
+    private GoogleVolumeMapper googleVolumeMapper;
 
     @Autowired
     private MeterRegistry meterRegistry;
 
-    // Get all books
-    public List<BookResponseDTO> getAllBooks() {
-        logger.info("getting books");
-        return bookRepository.findAll().stream().map(book -> new BookResponseDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate())).collect(Collectors.toList());
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.books.export.flush-every:500}")
+    private int exportFlushEvery = 500;
+
+    @Value("${app.books.page.max-size:100}")
+    private int maxPageSize = 100;
+
+    // 0: only a full page of local hits skips Google Books
+    @Value("${app.books.search.hybrid.min-local-hits:0}")
+    private int hybridMinLocalHits = 0;
+
+    // The export divides by flush-every, so a bad value fails startup rather than the first export
+    @PostConstruct
+    void checkSettings() {
+        if (exportFlushEvery < 1) {
+            throw new IllegalStateException("app.books.export.flush-every must be at least 1, was " + exportFlushEvery);
+        }
+    }
+
+    // Get one page of books matching the filter, seeking past the id carried in the cursor;
+    // later pages must be requested with the same filter
+    public BookPageDTO getBooksPage(int size, String sort, String cursor, BookFilter filter) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        BookCursor after = cursor == null || cursor.isBlank() ? null : BookCursor.decode(cursor);
+        // a cursor always continues in the direction it was issued for
+        Sort.Direction direction = after != null ? after.direction() : Sort.Direction.fromString(sort);
+        logger.info("getting books page size:{} direction:{}", pageSize, direction);
+
+        // read one extra row to know whether another page exists
+        List<BookResponseDTO> rows = bookRepository.findPage(filter, after != null ? after.lastId() : null, direction, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<BookResponseDTO> items = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? new BookCursor(items.get(items.size() - 1).id(), direction).encode() : null;
+        return new BookPageDTO(items, items.size(), nextCursor);
+    }
+
+    // Write every book as one JSON line, reading through a cursor so memory stays flat
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream out) throws IOException {
+        logger.info("exporting books");
+        long count = 0;
+        try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+            Iterator<Book> rows = books.iterator();
+            while (rows.hasNext()) {
+                Book book = rows.next();
+                out.write(objectMapper.writeValueAsBytes(toResponse(book)));
+                out.write('\n');
+                // drop the row from the persistence context so it can be collected
+                entityManager.detach(book);
+                if (++count % exportFlushEvery == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        logger.info("exported {} books", count);
+        return count;
     }
 
-    // Get book by ID
+    // Get book by ID, served from the cache when possible; a miss is loaded through the cache so an
+    // eviction racing with the read cannot leave the old row behind
     public Optional<BookResponseDTO> getBookById(int id) {
         logger.info("getting book with id:{}",id);
-        return bookRepository.findById(id).map(book -> new BookResponseDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate()));
+        return bookCache.get(id, key -> bookRepository.findById(key).map(BookService::toResponse));
+    }
+
+    // The version and last write time of a book, from the cache or from those two columns alone
+    public Optional<BookVersionDTO> getBookVersion(int id) {
+        Optional<BookResponseDTO> cached = bookCache.get(id);
+        if (cached.isPresent()) {
+            return cached.map(book -> new BookVersionDTO(book.version(), book.updatedAt()));
+        }
+        return bookRepository.findVersionDTOById(id);
     }
 
     // Add a new book
@@ -72,79 +171,205 @@ public class BookService {
         newBook.setAuthor(bookDTO.author());
         newBook.setPublishedDate(bookDTO.publishedDate());
 
-        Book savedBook = bookRepository.save(newBook);
-        String notificationMessage = "New Book Added: " + savedBook.getTitle() + " by " + savedBook.getAuthor();
-        try {
-            notificationProducer.sendNotification(notificationMessage);
-        } catch (Exception e) {
-            logger.warn("Could not send Kafka notification: {}", e.getMessage());
-        }
-        meterRegistry.counter("books.added.count").increment();
-        return new BookResponseDTO(savedBook.getId(), savedBook.getTitle(), savedBook.getAuthor(), savedBook.getPublishedDate());
+        Book savedBook = saveNew(newBook);
+        BookResponseDTO response = toResponse(savedBook);
+        bookCache.put(response);
+        return response;
     }
 
-    // Update a book
-    public Optional<BookResponseDTO> updateBook(int id, BookRequestDTO updatedBook) {
+    // Update a book in one statement guarded by its version (see writeAtVersion). The event's before image
+    // is the cached book when it is the revision replaced; the row itself is not read for it
+    @Transactional
+    public Optional<BookResponseDTO> updateBook(int id, BookRequestDTO updatedBook, Long expectedVersion) {
         logger.info("Updating details of book with id:{}",id);
-        return bookRepository.findById(id).map(book -> {
-            book.setTitle(updatedBook.title());
-            book.setAuthor(updatedBook.author());
-            book.setPublishedDate(updatedBook.publishedDate());
-            bookRepository.save(book);
-
-
-            return new BookResponseDTO(
-                    book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate());
-        });
+        Optional<BookResponseDTO> cached = bookCache.get(id);
+        Instant updatedAt = Book.currentTimestamp();
+        OptionalLong replaced = writeAtVersion(id, expectedVersion, cached, version -> bookRepository.updateByIdAndVersion(
+                id, version, updatedBook.title(), updatedBook.author(), updatedBook.publishedDate(), updatedAt));
+        if (replaced.isEmpty()) {
+            return Optional.empty();
+        }
+        long version = replaced.getAsLong() + 1;
+        BookImage after = new BookImage(updatedBook.title(), updatedBook.author(), updatedBook.publishedDate());
+        bookEventPublisher.publish(BookEvent.updated(id, beforeImage(cached, replaced.getAsLong()), after, version, updatedAt));
+        evictAfterCommit(id);
 
+        return Optional.of(new BookResponseDTO(id, after.title(), after.author(), after.publishedDate(), version, updatedAt));
+    }
 
+    // Apply a merge patch in one statement that sets only the patched columns, guarded by the version like
+    // PUT; the event names just those fields. The patched values are checked against the BookRequestDTO rules
+    // before the write, so PATCH reports the same errors as PUT. Only the new version is returned: the
+    // other fields are never read
+    @Transactional
+    public Optional<BookVersionDTO> patchBook(int id, BookPatch patch, Long expectedVersion) {
+        logger.info("Patching {} of book with id:{}", patch.fields(), id);
+        String violations = violationsOf(patch);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations);
+        }
+        Instant updatedAt = Book.currentTimestamp();
+        OptionalLong replaced = writeAtVersion(id, expectedVersion, bookCache.get(id),
+                version -> bookRepository.patch(id, version, patch, updatedAt));
+        if (replaced.isEmpty()) {
+            return Optional.empty();
+        }
+        long version = replaced.getAsLong() + 1;
+        bookEventPublisher.publish(BookEvent.patched(id, patch.changes(), patch.fields(), version, updatedAt));
+        evictAfterCommit(id);
+        return Optional.of(new BookVersionDTO(version, updatedAt));
     }
 
-    // Delete a book
-    public boolean deleteBook(int id) {
+    // Delete a book in one statement guarded by its version; like updates, the before image comes from the cache
+    @Transactional
+    public boolean deleteBook(int id, Long expectedVersion) {
         logger.info("Deleting book with id:{}",id);
-        if (!bookRepository.existsById(id)) {
+        Optional<BookResponseDTO> cached = bookCache.get(id);
+        OptionalLong removed = writeAtVersion(id, expectedVersion, cached, version -> bookRepository.removeByIdAndVersion(id, version));
+        if (removed.isEmpty()) {
             return false;
         }
-        bookRepository.deleteById(id);
+        bookEventPublisher.publish(BookEvent.deleted(id, beforeImage(cached, removed.getAsLong()), removed.getAsLong(), Book.currentTimestamp()));
+        evictAfterCommit(id);
         return true;
     }
 
-    @CircuitBreaker(name = "googleApiBreaker", fallbackMethod = "searchBooksFallback")
-    @Retry(name = "googleApiRetry", fallbackMethod = "searchBooksFallback")
-    public List<GoogleApiResponseDTO> searchBooks(String title) {
-        logger.info("Fetching from API");
+    // Evicted now and again once the change commits: a miss in between still reads the committed old row,
+    // and only the second eviction removes what it cached
+    private void evictAfterCommit(int id) {
+        bookCache.evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bookCache.evict(id);
+                }
+            });
+        }
+    }
 
-        String url = baseURL + "?q=intitle:" + title + "&key=" + googleApiKey;
+    // Run a write guarded by the book's version and return the version it replaced, empty when the book does
+    // not exist. With expectedVersion set the write is one statement, and a miss on an existing book is stale.
+    // Without it the cached book's version is tried first; on a cache miss, or when another write got there
+    // first, the version is read without a lock and the write retried, since the event and the ETag need it
+    private OptionalLong writeAtVersion(int id, Long expectedVersion, Optional<BookResponseDTO> cached, LongToIntFunction write) {
+        if (expectedVersion != null) {
+            if (write.applyAsInt(expectedVersion) > 0) {
+                return OptionalLong.of(expectedVersion);
+            }
+            // only the failure path pays for telling a missing book from a stale version
+            if (bookRepository.findVersionDTOById(id).isPresent()) {
+                throw staleVersion(id, expectedVersion);
+            }
+            return OptionalLong.empty();
+        }
+        if (cached.isPresent() && write.applyAsInt(cached.get().version()) > 0) {
+            return OptionalLong.of(cached.get().version());
+        }
+        while (true) {
+            Optional<BookVersionDTO> current = bookRepository.findVersionDTOById(id);
+            if (current.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            if (write.applyAsInt(current.get().version()) > 0) {
+                return OptionalLong.of(current.get().version());
+            }
+        }
+    }
 
-        logger.info(url);
+    // The cached book is a write's before image only when it is the revision the write replaced
+    private static BookImage beforeImage(Optional<BookResponseDTO> cached, long replacedVersion) {
+        return cached.filter(book -> book.version() == replacedVersion).map(BookService::imageOf).orElse(null);
+    }
 
-        ResponseEntity<JsonNode> response = restTemplate.getForEntity(url, JsonNode.class);
-        JsonNode jsonNode = response.getBody();
+    private static OptimisticLockingFailureException staleVersion(int id, long version) {
+        return new OptimisticLockingFailureException("Book with ID " + id + " was modified, version " + version + " is stale");
+    }
+
+    private static BookImage imageOf(BookResponseDTO book) {
+        return new BookImage(book.title(), book.author(), book.publishedDate());
+    }
 
-        if (jsonNode == null || !jsonNode.has("items") || jsonNode.get("items").isEmpty()) {
-            return List.of();
+    // Search the local catalog by title and author through the in-process index
+    public List<BookResponseDTO> searchLocal(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
         }
+        logger.info("Searching local catalog");
+        return bookSearchIndex.search(query, Math.max(1, Math.min(limit, maxPageSize)));
+    }
 
-        List<GoogleApiResponseDTO> books = new ArrayList<>();
-        jsonNode.get("items").forEach(item -> {
-            JsonNode volumeInfo = item.get("volumeInfo");
-            logger.info(String.valueOf(volumeInfo));
+    // Search the local catalog first and only ask Google Books when it has fewer than min-local-hits matches
+    // (by default, fewer than the limit); Google results that repeat a local book or each other are dropped
+    public List<SearchResultDTO> searchHybrid(String title, int limit) {
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("Search title is required");
+        }
+        int maxResults = Math.max(1, Math.min(limit, maxPageSize));
+        List<SearchResultDTO> results = bookSearchIndex.searchTitle(title, maxResults).stream()
+                .map(book -> new SearchResultDTO(String.valueOf(book.id()), book.title(),
+                        book.author() == null ? List.of() : List.of(book.author()), book.publishedDate(), "LOCAL"))
+                .collect(Collectors.toCollection(ArrayList::new));
+        int enough = hybridMinLocalHits > 0 ? Math.min(hybridMinLocalHits, maxResults) : maxResults;
+        if (results.size() >= enough) {
+            meterRegistry.counter("books.search.hybrid", "source", "local").increment();
+            return results;
+        }
 
-            List<String> authors = volumeInfo.has("authors") ? StreamSupport.stream(volumeInfo.get("authors").spliterator(), false).map(JsonNode::asText).collect(Collectors.toList()) : List.of("Unknown");
+        meterRegistry.counter("books.search.hybrid", "source", "google").increment();
+        List<GoogleApiResponseDTO> volumes;
+        try {
+            volumes = googleSearchCache.get(title, this::fetchSearchResults);
+        } catch (RuntimeException e) {
+            // local hits are still an answer; with none, report the outage like the plain search does,
+            // under a source of its own so the placeholder cannot pass for a Google volume
+            logger.warn("Google Books unavailable for hybrid search: {}", e.getMessage());
+            if (results.isEmpty()) {
+                GoogleApiResponseDTO placeholder = searchBooksFallback(title, e).get(0);
+                results.add(new SearchResultDTO(placeholder.id(), placeholder.title(), placeholder.author(), null, "UNAVAILABLE"));
+            }
+            return results;
+        }
+        Set<String> seen = results.stream().map(BookService::dedupeKey).collect(Collectors.toSet());
+        for (GoogleApiResponseDTO volume : volumes) {
+            SearchResultDTO result = new SearchResultDTO(volume.id(), volume.title(), volume.author(), volume.publishedDate(), "GOOGLE");
+            if (results.size() < maxResults && seen.add(dedupeKey(result))) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
 
-            logger.info("date");
-            DateTimeFormatter formatter = new DateTimeFormatterBuilder().appendPattern("yyyy[-MM[-dd]]").parseDefaulting(ChronoField.MONTH_OF_YEAR, 1).parseDefaulting(ChronoField.DAY_OF_MONTH, 1).toFormatter();
-            LocalDate publishedDate = LocalDate.parse(volumeInfo.get("publishedDate").asText(), formatter);
-            logger.info("returning books");
-            books.add(new GoogleApiResponseDTO(
-                    item.get("id").asText(),
-                    volumeInfo.get("title").asText(),
-                    authors,
-                    publishedDate
-            ));
-        });
-        return books;
+    // Same title and first author, ignoring case and spacing, is the same book
+    private static String dedupeKey(SearchResultDTO result) {
+        String author = result.author() == null || result.author().isEmpty() ? "" : result.author().get(0);
+        return (result.title() + "|" + author).toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    // Fill the search index from the table once the application is up; later changes arrive as events.
+    // Rows are streamed as DTOs so the persistence context stays empty however large the table is
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildSearchIndex() {
+        // the index opens (and closes) the stream itself once it has been cleared
+        logger.info("Indexed {} books for local search", bookSearchIndex.rebuild(bookRepository::streamAllResponsesOrderById));
+    }
+
+    // Search Google Books; breaker and retry run inside GoogleBooksClient, any failure falls back to a placeholder
+    public List<GoogleApiResponseDTO> searchBooks(String title) {
+        try {
+            return googleSearchCache.get(title, this::fetchSearchResults);
+        } catch (RuntimeException e) {
+            return searchBooksFallback(title, e);
+        }
+    }
+
+    private List<GoogleApiResponseDTO> fetchSearchResults(String title) {
+        logger.info("Fetching from API");
+        // the request thread waits at most the client timeouts times the retry attempts
+        byte[] body = googleBooksClient.searchVolumes(title).block();
+        // parsed after the retried fetch: a bad volume is dropped, a bad body is not fetched again
+        return googleVolumeMapper.readSearchResults(body);
     }
 
     public List<GoogleApiResponseDTO> searchBooksFallback(String title, Throwable t) {
@@ -158,60 +383,42 @@ public class BookService {
         return List.of(placeholder);
     }
 
-    @CircuitBreaker(name = "googleApiBreaker", fallbackMethod = "addViaApiFallback")
-    @Retry(name = "googleApiRetry", fallbackMethod = "addViaApiFallback")
     public Book addViaApi(GoogleApiRequestDTO bookId) {
 
         String id=bookId.id();
         logger.info("Getting book via API with id: {}", id);
 
         String cleanId = id.replaceAll("^\"|\"$", "");
-        String url = baseURL+"/"+ cleanId + "?key=" + googleApiKey;
-
-        ResponseEntity<JsonNode> response = restTemplate.getForEntity(url, JsonNode.class);
-        JsonNode jsonNode = response.getBody();
 
-        if (jsonNode == null || !jsonNode.has("volumeInfo")) {
-            throw new NoSuchElementException("No book found for id: " + cleanId);
+        byte[] body;
+        try {
+            body = googleBooksClient.getVolume(cleanId).block();
+        } catch (NoSuchElementException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return addViaApiFallback(bookId, e);
         }
 
-        JsonNode volumeInfo = jsonNode.get("volumeInfo");
-        logger.info("VolumeInfo: {}", volumeInfo);
-
-        List<String> authors = volumeInfo.has("authors") ?
-                StreamSupport.stream(volumeInfo.get("authors").spliterator(), false)
-                        .map(JsonNode::asText)
-                        .collect(Collectors.toList()) :
-                List.of("Unknown");
-
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy[-MM[-dd]]")
-                .parseDefaulting(ChronoField.MONTH_OF_YEAR, 1)
-                .parseDefaulting(ChronoField.DAY_OF_MONTH, 1)
-                .toFormatter();
-        LocalDate publishedDate = LocalDate.parse(volumeInfo.get("publishedDate").asText(), formatter);
-
-        GoogleApiResponseDTO googleResponse = new GoogleApiResponseDTO(
-                jsonNode.get("id").asText(),
-                volumeInfo.get("title").asText(),
-                authors,
-                publishedDate
-        );
+        GoogleApiResponseDTO googleResponse = googleVolumeMapper.readVolume(body)
+                .orElseThrow(() -> new NoSuchElementException("No book found for id: " + cleanId));
 
-        Book book = new Book(
+        // the mapper tolerates a missing or unreadable date for search results; a saved book needs one,
+        // so the volume is held to the same rules as POST /books and the bulk imports
+        BookRequestDTO request = new BookRequestDTO(
                 googleResponse.title(),
-                googleResponse.author().get(0),
+                googleResponse.author().isEmpty() ? null : googleResponse.author().get(0),
                 googleResponse.publishedDate()
         );
-
-        String notificationMessage = "New Book Added: " + book.getTitle() + " by " + book.getAuthor();
-        try {
-            notificationProducer.sendNotification(notificationMessage);
-        } catch (Exception e) {
-            logger.info("Could not send Kafka notification: {}", e.getMessage());
+        String violations = violationsOf(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Google Books volume " + cleanId + " cannot be imported: " + violations);
         }
-        meterRegistry.counter("books.added.count").increment();
-        return bookRepository.save(book);
+
+        Book book = new Book(request.title(), request.author(), request.publishedDate());
+
+        Book savedBook = saveNew(book);
+        bookCache.put(toResponse(savedBook));
+        return savedBook;
     }
 
     public Book addViaApiFallback(GoogleApiRequestDTO id, Throwable t) {
@@ -225,5 +432,34 @@ public class BookService {
         return placeholder;
     }
 
+    // Save a new book; BookChangeListener queues its event in the save's transaction
+    private Book saveNew(Book book) {
+        Book savedBook = bookRepository.save(book);
+        meterRegistry.counter("books.added.count").increment();
+        return savedBook;
+    }
+
+    // The broken BookRequestDTO rules as "field : message" pairs, empty for a valid book
+    private String violationsOf(BookRequestDTO book) {
+        return describe(validator.validate(book).stream());
+    }
+
+    // BookRequestDTO only has per-field constraints, so checking the patched fields alone is the same as
+    // checking the patched book: the fields a patch leaves alone are already valid in the row
+    private String violationsOf(BookPatch patch) {
+        return describe(patch.fields().stream()
+                .flatMap(field -> validator.validateValue(BookRequestDTO.class, field, patch.valueOf(field)).stream()));
+    }
+
+    private static String describe(Stream<ConstraintViolation<BookRequestDTO>> violations) {
+        return violations
+                .map(v -> v.getPropertyPath() + " : " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static BookResponseDTO toResponse(Book book) {
+        return new BookResponseDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate(), book.getVersion(), book.getUpdatedAt());
+    }
 
 }
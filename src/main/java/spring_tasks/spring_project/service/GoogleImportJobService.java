@@ -0,0 +1,91 @@
+package spring_tasks.spring_project.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import spring_tasks.spring_project.dto.BulkImportResponseDTO;
+import spring_tasks.spring_project.dto.GoogleImportJobDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Runs Google Books imports as background jobs on the application task executor, so a large import
+ * neither holds a request thread for minutes nor outlives the client's timeout. Jobs are kept in memory
+ * for {@code app.books.google-import.job-ttl} after their last change and do not survive a restart.
+ */
+@Service
+public class GoogleImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleImportJobService.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private final BookBulkService bookBulkService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Cache<String, GoogleImportJobDTO> jobs;
+
+    public GoogleImportJobService(BookBulkService bookBulkService,
+                                  @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                                  @Value("${app.books.google-import.job-ttl:1h}") Duration jobTtl,
+                                  @Value("${app.books.google-import.max-jobs:1000}") long maxJobs) {
+        this.bookBulkService = bookBulkService;
+        this.taskExecutor = taskExecutor;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxJobs)
+                .expireAfterWrite(jobTtl)
+                .build();
+    }
+
+    // Queue an import of the given volume ids; too many ids are rejected here rather than in the job
+    public GoogleImportJobDTO submit(List<String> volumeIds) {
+        bookBulkService.checkGoogleImportSize(volumeIds);
+        GoogleImportJobDTO job = new GoogleImportJobDTO(UUID.randomUUID().toString(), QUEUED, volumeIds.size(),
+                Instant.now(), null, null, null);
+        jobs.put(job.id(), job);
+        List<String> ids = List.copyOf(volumeIds);
+        // the job's log lines keep the trace of the request that submitted it
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        taskExecutor.execute(() -> {
+            if (context != null) {
+                MDC.setContextMap(context);
+            }
+            try {
+                run(job, ids);
+            } finally {
+                MDC.clear();
+            }
+        });
+        logger.info("Queued Google Books import {} of {} volumes", job.id(), ids.size());
+        return job;
+    }
+
+    public Optional<GoogleImportJobDTO> getJob(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id));
+    }
+
+    private void run(GoogleImportJobDTO job, List<String> ids) {
+        jobs.put(job.id(), new GoogleImportJobDTO(job.id(), RUNNING, job.total(), job.submittedAt(), null, null, null));
+        try {
+            BulkImportResponseDTO result = bookBulkService.importFromGoogle(ids);
+            jobs.put(job.id(), new GoogleImportJobDTO(job.id(), DONE, job.total(), job.submittedAt(), Instant.now(), result, null));
+        } catch (RuntimeException e) {
+            logger.error("Google Books import {} failed", job.id(), e);
+            jobs.put(job.id(), new GoogleImportJobDTO(job.id(), FAILED, job.total(), job.submittedAt(), Instant.now(), null,
+                    e.getMessage() != null ? e.getMessage() : e.toString()));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package spring_tasks.spring_project.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of GET /books/search against a WireMock stand-in for Google Books that answers after a fixed delay.
+ * Subclasses pick the execution mode; Tomcat gets a deliberately small platform pool and the upstream delay is
+ * long enough that waiting, not CPU, bounds the platform run.
+ * Run with: mvn -Pbenchmark test (use a Java 21 runtime for the virtual-thread run).
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "google.api.key=bench-key",
+        "server.tomcat.threads.max=8",
+        "google.api.client.max-connections=1000",
+        "google.api.client.pending-acquire-max-count=5000",
+        "spring.kafka.admin.auto-create=false",
+        // measures the execution modes, so nothing may be shed
+        "app.concurrency.enabled=false"
+})
+abstract class AbstractSearchThroughputBenchmark {
+
+    private static final int UPSTREAM_DELAY_MILLIS = 300;
+    private static final int WARMUP_REQUESTS = 50;
+    private static final int REQUESTS = 400;
+
+    // shared by both execution modes, lives as long as the test JVM
+    static final WireMockServer googleBooks = startGoogleBooksStub();
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+
+    @DynamicPropertySource
+    static void googleBooksUrl(DynamicPropertyRegistry registry) {
+        registry.add("google.api.base-url", () -> googleBooks.baseUrl() + "/books/v1/volumes");
+    }
+
+    abstract String mode();
+
+    @Test
+    void searchThroughput() {
+        fire(WARMUP_REQUESTS, "warmup");
+
+        long start = System.nanoTime();
+        fire(REQUESTS, "run");
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("[benchmark] search throughput, %s threads: %d requests in %.2fs = %.1f req/s%n",
+                mode(), REQUESTS, seconds, REQUESTS / seconds);
+    }
+
+    private void fire(int count, String prefix) {
+        String auth = "Basic " + Base64.getEncoder().encodeToString("ashank:password123".getBytes(StandardCharsets.UTF_8));
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // distinct titles so the search cache does not absorb the load
+            String title = URLEncoder.encode(mode() + " " + prefix + " " + i, StandardCharsets.UTF_8);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books/search?title=" + title))
+                    .header("Authorization", auth)
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            HttpResponse<String> result = response.join();
+            assertEquals(200, result.statusCode());
+            assertTrue(result.body().contains("bench-id"), result.body());
+        }
+    }
+
+    private static WireMockServer startGoogleBooksStub() {
+        WireMockServer server = new WireMockServer(options().dynamicPort()
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(64)
+                .containerThreads(200));
+        server.start();
+        server.stubFor(get(urlPathEqualTo("/books/v1/volumes")).willReturn(okJson("""
+                {"items":[{"id":"bench-id","volumeInfo":{"title":"Bench","authors":["Author"],"publishedDate":"2020-01-01"}}]}
+                """).withFixedDelay(UPSTREAM_DELAY_MILLIS)));
+        return server;
+    }
+}
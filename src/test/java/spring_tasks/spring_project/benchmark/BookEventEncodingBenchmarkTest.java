@@ -0,0 +1,78 @@
+package spring_tasks.spring_project.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventSchemaRegistry;
+import spring_tasks.spring_project.kafka.event.BookEventSerializer;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Size and encoding throughput of the Avro BookEvent against the old free-text notification
+ * and a JSON rendering of the same event. Run with: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+class BookEventEncodingBenchmarkTest {
+
+    private static final int EVENTS = 10_000;
+    private static final int ROUNDS = 20;
+
+    private final BookEventSerializer avro = new BookEventSerializer(new BookEventSchemaRegistry());
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void encodingSizeAndThroughput() {
+        List<BookEvent> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(BookEvent.created(i, new BookImage("Book title number " + i, "Author " + (i % 500),
+                    LocalDate.of(1900 + i % 120, 1 + i % 12, 1 + i % 28)), 0L, Instant.now()));
+        }
+
+        measure("text", events, event ->
+                ("New Book Added: " + event.after().title() + " by " + event.after().author()).getBytes(StandardCharsets.UTF_8));
+        double json = measure("json", events, event -> {
+            try {
+                return objectMapper.writeValueAsBytes(event);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        double binary = measure("avro", events, event -> avro.serialize("book-notification", event));
+
+        assertTrue(binary < json);
+    }
+
+    // Returns the average encoded size
+    private static double measure(String format, List<BookEvent> events, Function<BookEvent, byte[]> encoder) {
+        long bytes = 0;
+        for (BookEvent event : events) {
+            bytes += encoder.apply(event).length;
+        }
+        // first half warms up
+        long start = 0;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            if (round == ROUNDS / 2) {
+                start = System.nanoTime();
+            }
+            for (BookEvent event : events) {
+                sink += encoder.apply(event).length;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double perSecond = (double) EVENTS * (ROUNDS - ROUNDS / 2) / seconds;
+        double averageSize = (double) bytes / events.size();
+        System.out.printf("[benchmark] %-4s %6.1f bytes/event %,12.0f events/s (%d)%n", format, averageSize, perSecond, sink % 10);
+        return averageSize;
+    }
+}
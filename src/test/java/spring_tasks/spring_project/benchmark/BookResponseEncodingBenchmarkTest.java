@@ -0,0 +1,96 @@
+package spring_tasks.spring_project.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import spring_tasks.spring_project.dto.BookPageDTO;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Payload size and encoding cost of a 10k-book /books response in each negotiable format,
+ * plain and gzipped the way server.compression sends it. Run with: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+class BookResponseEncodingBenchmarkTest {
+
+    private static final int BOOKS = 10_000;
+    private static final int ROUNDS = 20;
+
+    private final ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+    private final ObjectMapper cbor = new CBORMapper().findAndRegisterModules();
+    private final ObjectMapper smile = new SmileMapper().findAndRegisterModules();
+
+    @Test
+    void encodingSizeAndCost() {
+        List<BookResponseDTO> books = new ArrayList<>(BOOKS);
+        Instant updatedAt = Instant.parse("2024-06-05T10:15:30.123456Z");
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new BookResponseDTO(i, "Book title number " + i, "Author " + (i % 500),
+                    LocalDate.of(1900 + i % 120, 1 + i % 12, 1 + i % 28), i % 7, updatedAt.plusSeconds(i)));
+        }
+        BookPageDTO page = new BookPageDTO(books, BOOKS, "YToxMDAwMA");
+
+        int jsonSize = measure("json", page, encoder(json));
+        int jsonGzip = measure("json+gzip", page, encoder(json).andThen(BookResponseEncodingBenchmarkTest::gzip));
+        int cborSize = measure("cbor", page, encoder(cbor));
+        measure("cbor+gzip", page, encoder(cbor).andThen(BookResponseEncodingBenchmarkTest::gzip));
+        int smileSize = measure("smile", page, encoder(smile));
+        measure("smile+gzip", page, encoder(smile).andThen(BookResponseEncodingBenchmarkTest::gzip));
+
+        assertTrue(cborSize < jsonSize);
+        assertTrue(smileSize < jsonSize);
+        assertTrue(jsonGzip < jsonSize);
+    }
+
+    private static Function<BookPageDTO, byte[]> encoder(ObjectMapper mapper) {
+        return page -> {
+            try {
+                return mapper.writeValueAsBytes(page);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Returns the encoded size of one response
+    private static int measure(String format, BookPageDTO page, Function<BookPageDTO, byte[]> encoder) {
+        int size = encoder.apply(page).length;
+        // first half warms up
+        long start = 0;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            if (round == ROUNDS / 2) {
+                start = System.nanoTime();
+            }
+            sink += encoder.apply(page).length;
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / (ROUNDS - ROUNDS / 2);
+        System.out.printf("[benchmark] %-10s %,10d bytes/response %6.1f bytes/book %7.2f ms/response (%d)%n",
+                format, size, (double) size / BOOKS, millis, sink % 10);
+        return size;
+    }
+}
@@ -0,0 +1,196 @@
+package spring_tasks.spring_project.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.repository.BookRepository;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency injection for the Google Books integration. WireMock answers every Google call after
+ * {@value #UPSTREAM_DELAY_MILLIS}ms while a steady stream of searches with distinct titles keeps the
+ * integration saturated. The p99 of the local endpoints GET /books/{id} and GET /books must stay within
+ * {@value #TOLERATED_P99_FACTOR}x (plus {@value #TOLERATED_P99_SLACK_MILLIS}ms of noise) of their p99 with
+ * Google idle: the bulkhead, time limiter and the external concurrency group keep the slow calls off the
+ * threads those endpoints use.
+ * Run with: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "google.api.key=bench-key",
+        "spring.kafka.admin.auto-create=false"
+})
+class GoogleLatencyIsolationBenchmarkTest {
+
+    private static final int UPSTREAM_DELAY_MILLIS = 2000;
+    private static final int SEARCH_CLIENTS = 150;
+    private static final int SAMPLES = 400;
+    private static final long THINK_TIME_MILLIS = 50;
+    private static final double TOLERATED_P99_FACTOR = 3.0;
+    private static final long TOLERATED_P99_SLACK_MILLIS = 50;
+    private static final String AUTH = "Basic " + Base64.getEncoder().encodeToString("ashank:password123".getBytes(StandardCharsets.UTF_8));
+
+    static final WireMockServer googleBooks = startGoogleBooksStub();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+    private int bookId;
+
+    @DynamicPropertySource
+    static void googleBooksUrl(DynamicPropertyRegistry registry) {
+        registry.add("google.api.base-url", () -> googleBooks.baseUrl() + "/books/v1/volumes");
+    }
+
+    @AfterAll
+    static void stopGoogleBooks() {
+        googleBooks.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        bookId = bookRepository.save(new Book("Isolation", "Author", LocalDate.of(2020, 1, 1))).getId();
+    }
+
+    @Test
+    void localEndpointsKeepTheirP99WhileGoogleIsSlow() throws Exception {
+        measure("/books/" + bookId, 100);
+        long idleById = p99(measure("/books/" + bookId, SAMPLES));
+        long idlePage = p99(measure("/books", SAMPLES));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger searches = new AtomicInteger();
+        List<CompletableFuture<Void>> load = new ArrayList<>();
+        ExecutorService searchClients = Executors.newFixedThreadPool(SEARCH_CLIENTS);
+        for (int client = 0; client < SEARCH_CLIENTS; client++) {
+            int id = client;
+            load.add(CompletableFuture.runAsync(() -> {
+                while (running.get()) {
+                    // distinct titles so the search cache does not absorb the load
+                    send("/books/search?title=" + URLEncoder.encode("slow " + id + " " + searches.incrementAndGet(), StandardCharsets.UTF_8));
+                    // shed and fallback answers come back at once; a real client would not spin on them
+                    pause(THINK_TIME_MILLIS);
+                }
+            }, searchClients));
+        }
+        try {
+            // let the slow calls fill the bulkhead and the external group first
+            Thread.sleep(UPSTREAM_DELAY_MILLIS);
+            long loadedById = p99(measure("/books/" + bookId, SAMPLES));
+            long loadedPage = p99(measure("/books", SAMPLES));
+
+            System.out.printf("[benchmark] GET /books/{id} p99 %dms idle, %dms with Google slow%n", idleById, loadedById);
+            System.out.printf("[benchmark] GET /books      p99 %dms idle, %dms with Google slow (%d searches sent)%n",
+                    idlePage, loadedPage, searches.get());
+            assertTrue(loadedById <= tolerated(idleById), "GET /books/{id} p99 " + loadedById + "ms vs " + idleById + "ms idle");
+            assertTrue(loadedPage <= tolerated(idlePage), "GET /books p99 " + loadedPage + "ms vs " + idlePage + "ms idle");
+        } finally {
+            running.set(false);
+            CompletableFuture.allOf(load.toArray(CompletableFuture[]::new)).join();
+            searchClients.shutdown();
+        }
+    }
+
+    @Test
+    void resilienceStateIsPublishedAsGauges() {
+        assertNotNull(meterRegistry.find("resilience4j.circuitbreaker.state").tag("name", "googleApiBreaker").gauge());
+        assertNotNull(meterRegistry.find("resilience4j.bulkhead.available.concurrent.calls").tag("name", "googleApiBulkhead").gauge());
+        assertNotNull(meterRegistry.find("resilience4j.retry.calls").tag("name", "googleApiRetry").meter());
+        assertNotNull(meterRegistry.find("resilience4j.timelimiter.calls").tag("name", "googleApiTimeLimiter").meter());
+    }
+
+    private static long tolerated(long idleP99) {
+        return (long) (idleP99 * TOLERATED_P99_FACTOR) + TOLERATED_P99_SLACK_MILLIS;
+    }
+
+    // Latency in milliseconds of sequential requests, each checked for 200
+    private long[] measure(String path, int count) {
+        long[] millis = new long[count];
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            int status = send(path);
+            millis[i] = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            assertEquals(200, status, path);
+        }
+        return millis;
+    }
+
+    private int send(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", AUTH)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long p99(long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+
+    private static WireMockServer startGoogleBooksStub() {
+        WireMockServer server = new WireMockServer(options().dynamicPort()
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(64)
+                .containerThreads(300));
+        server.start();
+        server.stubFor(get(urlPathEqualTo("/books/v1/volumes")).willReturn(okJson("""
+                {"items":[{"id":"slow-id","volumeInfo":{"title":"Slow","authors":["Author"],"publishedDate":"2020-01-01"}}]}
+                """).withFixedDelay(UPSTREAM_DELAY_MILLIS)));
+        return server;
+    }
+}
@@ -0,0 +1,139 @@
+package spring_tasks.spring_project.benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import spring_tasks.spring_project.config.LogSamplingFilter;
+import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.repository.BookRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Requests per second of GET /books/{id} with logging off, with every request line logged, and with the
+ * configured sampling of hot-path loggers. {@value #CLIENTS} clients send requests back to back, so the
+ * difference is what the request thread pays per log line: the MDC, the turbo filters and an enqueue
+ * into the async appender.
+ * Run with: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "google.api.key=bench-key",
+        "spring.kafka.admin.auto-create=false",
+        // measures logging, so nothing may be shed
+        "app.concurrency.enabled=false",
+        "app.logging.sampling.rate=0.1"
+})
+class LoggingThroughputBenchmarkTest {
+
+    private static final int CLIENTS = 16;
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final int REQUESTS = 20_000;
+    private static final String AUTH = "Basic " + Base64.getEncoder().encodeToString("ashank:password123".getBytes(StandardCharsets.UTF_8));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoggingSystem loggingSystem;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+    private LogSamplingFilter samplingFilter;
+    private int bookId;
+
+    @BeforeEach
+    void setUp() {
+        bookId = bookRepository.save(new Book("Logging", "Author", LocalDate.of(2020, 1, 1))).getId();
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        samplingFilter = context.getTurboFilterList().stream()
+                .filter(LogSamplingFilter.class::isInstance)
+                .map(LogSamplingFilter.class::cast)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @AfterEach
+    void restoreLogging() {
+        loggingSystem.setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.INFO);
+        samplingFilter.setRate(0.1);
+    }
+
+    @Test
+    void requestsPerSecondWithLoggingOnAndOff() throws Exception {
+        loggingSystem.setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.OFF);
+        run(WARMUP_REQUESTS);
+        double off = run(REQUESTS);
+
+        loggingSystem.setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.INFO);
+        samplingFilter.setRate(1.0);
+        double everyLine = run(REQUESTS);
+
+        samplingFilter.setRate(0.1);
+        double sampled = run(REQUESTS);
+
+        System.out.printf("[benchmark] GET /books/{id}, %d clients: logging off %.0f req/s, INFO every line %.0f req/s (%.1f%%), "
+                        + "INFO sampled at 10%% %.0f req/s (%.1f%%)%n",
+                CLIENTS, off, everyLine, 100 * everyLine / off, sampled, 100 * sampled / off);
+    }
+
+    // Requests per second for count requests spread over CLIENTS closed-loop clients, each checked for 200
+    private double run(int count) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(count);
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int client = 0; client < CLIENTS; client++) {
+            runs.add(CompletableFuture.runAsync(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    if (send("/books/" + bookId) != 200) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }, clients));
+        }
+        CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+        assertEquals(0, failures.get(), "non-200 responses");
+        return count / seconds;
+    }
+
+    private int send(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", AUTH)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package spring_tasks.spring_project.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+class PlatformThreadSearchBenchmarkTest extends AbstractSearchThroughputBenchmark {
+
+    @Override
+    String mode() {
+        return "platform";
+    }
+}
@@ -0,0 +1,15 @@
+package spring_tasks.spring_project.benchmark;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.TestPropertySource;
+
+@EnabledForJreRange(min = JRE.JAVA_21)
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadSearchBenchmarkTest extends AbstractSearchThroughputBenchmark {
+
+    @Override
+    String mode() {
+        return "virtual";
+    }
+}
@@ -0,0 +1,45 @@
+package spring_tasks.spring_project.benchmark.jmh;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.repository.BookRepository;
+import spring_tasks.spring_project.service.BookService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * BookService.exportBooks() over the 1000-book fixture: each entity mapped to a BookResponseDTO and
+ * written as a JSON line, with the repository streaming from memory and the output discarded so only
+ * the service's own work is measured.
+ */
+@State(Scope.Benchmark)
+public class BookExportBenchmark {
+
+    private BookService bookService;
+
+    @Setup
+    public void setUp() {
+        List<Book> books = Fixtures.books();
+        // stub-only mocks record no invocations, so millions of calls do not pile up in memory
+        BookRepository bookRepository = mock(BookRepository.class, withSettings().stubOnly());
+        when(bookRepository.streamAllOrderById()).thenAnswer(invocation -> books.stream());
+        bookService = new BookService();
+        ReflectionTestUtils.setField(bookService, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(bookService, "entityManager", mock(EntityManager.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(bookService, "objectMapper", Fixtures.objectMapper());
+    }
+
+    @Benchmark
+    public long exportBooks() throws IOException {
+        return bookService.exportBooks(OutputStream.nullOutputStream());
+    }
+}
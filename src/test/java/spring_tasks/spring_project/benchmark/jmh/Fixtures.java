@@ -0,0 +1,57 @@
+package spring_tasks.spring_project.benchmark.jmh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.models.Book;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Fixed inputs for the JMH benchmarks, read from src/test/resources/benchmark so every run and
+ * every machine measures the same data.
+ */
+final class Fixtures {
+
+    static final String BOOKS = "/benchmark/books.json";
+    static final String GOOGLE_SEARCH_RESPONSE = "/benchmark/google-search-response.json";
+
+    private Fixtures() {
+    }
+
+    // Configured like the mapper Spring Boot gives the application: ISO dates, java.time support
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static byte[] bytes(String resource) {
+        try (InputStream in = Fixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + resource);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The book fixture as entities, the way the repository returns them
+    static List<Book> books() {
+        try {
+            List<BookResponseDTO> rows = objectMapper().readValue(bytes(BOOKS), new TypeReference<>() {});
+            return rows.stream().map(row -> {
+                Book book = new Book(row.title(), row.author(), row.publishedDate());
+                book.setId(row.id());
+                book.setVersion(row.version());
+                book.setUpdatedAt(row.updatedAt());
+                return book;
+            }).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
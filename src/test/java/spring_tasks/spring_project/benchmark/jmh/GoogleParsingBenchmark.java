@@ -0,0 +1,104 @@
+package spring_tasks.spring_project.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import spring_tasks.spring_project.client.GoogleVolumeMapper;
+import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+/**
+ * The searchBooks() parsing path on a recorded 40-volume Google Books response. The tree benchmarks
+ * keep the earlier mapping (readTree, then a formatter per volume) as the reference the streaming
+ * GoogleVolumeMapper is compared with, on the full body and on the fields= projection the client requests.
+ */
+@State(Scope.Benchmark)
+public class GoogleParsingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private GoogleVolumeMapper googleVolumeMapper;
+    private byte[] body;
+    private byte[] projectedBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Fixtures.objectMapper();
+        googleVolumeMapper = new GoogleVolumeMapper(new SimpleMeterRegistry());
+        body = Fixtures.bytes(Fixtures.GOOGLE_SEARCH_RESPONSE);
+        projectedBody = project(objectMapper, body);
+    }
+
+    // bytes to DTOs through a JsonNode tree, the mapping searchBooks() used before
+    @Benchmark
+    public List<GoogleApiResponseDTO> treeSearchResponse() throws IOException {
+        return treeSearchResults(objectMapper.readTree(body));
+    }
+
+    // bytes to DTOs with the streaming parser, unused fields skipped
+    @Benchmark
+    public List<GoogleApiResponseDTO> streamingSearchResponse() {
+        return googleVolumeMapper.readSearchResults(body);
+    }
+
+    // the tree mapping on the body Google sends for SEARCH_FIELDS
+    @Benchmark
+    public List<GoogleApiResponseDTO> treeProjectedResponse() throws IOException {
+        return treeSearchResults(objectMapper.readTree(projectedBody));
+    }
+
+    // what one search costs now: the projected body through the streaming parser
+    @Benchmark
+    public List<GoogleApiResponseDTO> streamingProjectedResponse() {
+        return googleVolumeMapper.readSearchResults(projectedBody);
+    }
+
+    // The fixture reduced to items(id,volumeInfo(title,authors,publishedDate)), as the API returns it
+    private static byte[] project(ObjectMapper objectMapper, byte[] body) throws IOException {
+        ArrayNode items = objectMapper.createArrayNode();
+        for (JsonNode item : objectMapper.readTree(body).path("items")) {
+            ObjectNode volumeInfo = objectMapper.createObjectNode();
+            for (String field : List.of("title", "authors", "publishedDate")) {
+                if (item.path("volumeInfo").has(field)) {
+                    volumeInfo.set(field, item.get("volumeInfo").get(field));
+                }
+            }
+            items.addObject().put("id", item.get("id").asText()).set("volumeInfo", volumeInfo);
+        }
+        return objectMapper.writeValueAsBytes(objectMapper.createObjectNode().set("items", items));
+    }
+
+    private static List<GoogleApiResponseDTO> treeSearchResults(JsonNode jsonNode) {
+        List<GoogleApiResponseDTO> books = new ArrayList<>();
+        if (jsonNode == null || !jsonNode.has("items") || jsonNode.get("items").isEmpty()) {
+            return books;
+        }
+        for (JsonNode item : jsonNode.get("items")) {
+            JsonNode volumeInfo = item.get("volumeInfo");
+            List<String> authors = volumeInfo.has("authors")
+                    ? StreamSupport.stream(volumeInfo.get("authors").spliterator(), false).map(JsonNode::asText).toList()
+                    : List.of("Unknown");
+            DateTimeFormatter formatter = new DateTimeFormatterBuilder()
+                    .appendPattern("yyyy[-MM[-dd]]")
+                    .parseDefaulting(ChronoField.MONTH_OF_YEAR, 1)
+                    .parseDefaulting(ChronoField.DAY_OF_MONTH, 1)
+                    .toFormatter();
+            books.add(new GoogleApiResponseDTO(item.get("id").asText(), volumeInfo.get("title").asText(), authors,
+                    LocalDate.parse(volumeInfo.get("publishedDate").asText(), formatter)));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,107 @@
+package spring_tasks.spring_project.benchmark.jmh;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every JMH benchmark in this package and compares the average time per operation with
+ * src/test/resources/benchmark/jmh-baseline.properties. A benchmark more than jmh.tolerance
+ * (default 0.25) slower than its baseline fails the run, and so does a benchmark with no baseline
+ * entry, so a new benchmark cannot go unrecorded. Everything it reads is a local fixture,
+ * so it also runs offline.
+ * Run with: mvn -o -Pjmh test (add -Djmh.baseline.update=true to store the new scores as the baseline)
+ */
+@Tag("benchmark")
+@Tag("jmh")
+class JmhBenchmarkTest {
+
+    private static final Path BASELINE = Path.of("src/test/resources/benchmark/jmh-baseline.properties");
+    private static final Path RESULT = Path.of("target/jmh-result.json");
+
+    @Test
+    void benchmarksStayWithinBaseline() throws Exception {
+        Files.createDirectories(RESULT.getParent());
+        Options options = new OptionsBuilder()
+                .include(JmhBenchmarkTest.class.getPackageName() + "\\.")
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                // replaces the surefire JVM arguments, which carry the coverage agent
+                .jvmArgs("-Xms512m", "-Xmx512m", "-Dlogback.configurationFile=benchmark/logback-benchmark.xml")
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT.toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        assertFalse(results.isEmpty());
+
+        TreeMap<String, Double> scores = new TreeMap<>();
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark().substring(JmhBenchmarkTest.class.getPackageName().length() + 1);
+            scores.put(name, result.getPrimaryResult().getScore());
+        }
+
+        if (Boolean.getBoolean("jmh.baseline.update")) {
+            writeBaseline(scores);
+            return;
+        }
+        assertTrue(Files.exists(BASELINE), "No baseline, run with -Djmh.baseline.update=true first");
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(BASELINE)) {
+            baseline.load(in);
+        }
+        double tolerance = Double.parseDouble(System.getProperty("jmh.tolerance", "0.25"));
+
+        List<String> regressions = new ArrayList<>();
+        List<String> unrecorded = new ArrayList<>();
+        scores.forEach((name, score) -> {
+            String stored = baseline.getProperty(name);
+            if (stored == null) {
+                System.out.printf("[benchmark] %-45s %10.2f us/op (no baseline)%n", name, score);
+                unrecorded.add(name);
+                return;
+            }
+            double change = score / Double.parseDouble(stored) - 1;
+            System.out.printf("[benchmark] %-45s %10.2f us/op baseline %10s %+6.1f%%%n", name, score, stored, change * 100);
+            if (change > tolerance) {
+                regressions.add(String.format("%s %.2f us/op vs %s", name, score, stored));
+            }
+        });
+        assertTrue(unrecorded.isEmpty(), "No baseline for " + unrecorded + ", run with -Djmh.baseline.update=true");
+        assertTrue(regressions.isEmpty(), "slower than baseline by more than " + tolerance * 100 + "%: " + regressions);
+    }
+
+    private static void writeBaseline(TreeMap<String, Double> scores) throws IOException {
+        StringBuilder lines = new StringBuilder("# average time per operation in microseconds, written by JmhBenchmarkTest\n");
+        scores.forEach((name, score) -> lines.append(name).append('=').append(String.format("%.2f", score)).append('\n'));
+        try (OutputStream out = Files.newOutputStream(BASELINE)) {
+            out.write(lines.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        System.out.println("[benchmark] baseline written to " + BASELINE);
+    }
+}
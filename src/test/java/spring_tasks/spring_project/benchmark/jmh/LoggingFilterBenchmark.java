@@ -0,0 +1,55 @@
+package spring_tasks.spring_project.benchmark.jmh;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import spring_tasks.spring_project.config.LoggingFilter;
+
+import java.io.IOException;
+
+/**
+ * What LoggingFilter adds to every request, around a chain that does nothing: ids, MDC and the
+ * OncePerRequestFilter bookkeeping, with and without a client-supplied X-Request-ID or traceparent.
+ */
+@State(Scope.Thread)
+public class LoggingFilterBenchmark {
+
+    private static final FilterChain NO_OP = (request, response) -> { };
+
+    private LoggingFilter loggingFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletRequest requestWithId;
+    private MockHttpServletRequest requestWithTraceparent;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        loggingFilter = new LoggingFilter();
+        request = new MockHttpServletRequest("GET", "/books/1");
+        requestWithId = new MockHttpServletRequest("GET", "/books/1");
+        requestWithId.addHeader("X-Request-ID", "3f1c9a52-6a8e-4a55-9d0f-b1b7ef0d6c21");
+        requestWithTraceparent = new MockHttpServletRequest("GET", "/books/1");
+        requestWithTraceparent.addHeader("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void generatedRequestId() throws ServletException, IOException {
+        loggingFilter.doFilter(request, response, NO_OP);
+    }
+
+    @Benchmark
+    public void clientRequestId() throws ServletException, IOException {
+        loggingFilter.doFilter(requestWithId, response, NO_OP);
+    }
+
+    @Benchmark
+    public void clientTraceparent() throws ServletException, IOException {
+        loggingFilter.doFilter(requestWithTraceparent, response, NO_OP);
+    }
+}
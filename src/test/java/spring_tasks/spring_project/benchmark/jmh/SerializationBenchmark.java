@@ -0,0 +1,48 @@
+package spring_tasks.spring_project.benchmark.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import spring_tasks.spring_project.client.GoogleVolumeMapper;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+import spring_tasks.spring_project.models.Book;
+
+import java.util.List;
+
+/**
+ * Jackson serialization of the response lists the API returns: the 1000-book fixture as
+ * BookResponseDTOs and the mapped Google search fixture as GoogleApiResponseDTOs.
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private List<BookResponseDTO> books;
+    private List<GoogleApiResponseDTO> volumes;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Fixtures.objectMapper();
+        books = Fixtures.books().stream().map(SerializationBenchmark::toResponse).toList();
+        volumes = new GoogleVolumeMapper(new SimpleMeterRegistry()).readSearchResults(Fixtures.bytes(Fixtures.GOOGLE_SEARCH_RESPONSE));
+    }
+
+    @Benchmark
+    public byte[] bookResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] googleVolumes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(volumes);
+    }
+
+    private static BookResponseDTO toResponse(Book book) {
+        return new BookResponseDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate(), book.getVersion(), book.getUpdatedAt());
+    }
+}
@@ -0,0 +1,124 @@
+package spring_tasks.spring_project.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaffeineBookCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CaffeineBookCache cache = new CaffeineBookCache(meterRegistry, 100, Duration.ofMinutes(1));
+
+    @Test
+    void testPutGetAndEvict() {
+        BookResponseDTO book = new BookResponseDTO(1, "Title", "Author", LocalDate.now(), 0, null);
+
+        assertTrue(cache.get(1).isEmpty());
+        cache.put(book);
+        assertEquals(book, cache.get(1).orElseThrow());
+
+        cache.evict(1);
+        assertTrue(cache.get(1).isEmpty());
+    }
+
+    @Test
+    void testPublishesHitAndMissMetrics() {
+        cache.put(new BookResponseDTO(1, "Title", "Author", LocalDate.now(), 0, null));
+        cache.get(1);
+        cache.get(2);
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "miss").functionCounter().count());
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", "books").functionCounter());
+    }
+
+    @Test
+    void testEvictDuringLoadDropsTheLoadedBook() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Optional<BookResponseDTO>> read = new AtomicReference<>();
+        Thread reader = new Thread(() -> read.set(cache.get(1, id -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // the row as it was before the change being evicted
+            return Optional.of(new BookResponseDTO(1, "Old Title", "Author", LocalDate.now(), 0, null));
+        })));
+        reader.start();
+        loading.await();
+
+        // the eviction does not wait for the load, it removes the load in flight
+        cache.evict(1);
+        release.countDown();
+        reader.join();
+
+        assertEquals("Old Title", read.get().orElseThrow().title());
+        assertTrue(cache.get(1).isEmpty());
+    }
+
+    @Test
+    void testLoadRunsOutsideTheMapsLock() {
+        // inside ConcurrentHashMap.compute a write to the same key fails as a recursive update
+        Optional<BookResponseDTO> book = cache.get(1, id -> {
+            cache.evict(id);
+            cache.put(new BookResponseDTO(2, "Other", "Author", LocalDate.now(), 0, null));
+            return Optional.of(new BookResponseDTO(1, "Title", "Author", LocalDate.now(), 0, null));
+        });
+
+        assertEquals("Title", book.orElseThrow().title());
+        assertTrue(cache.get(1).isEmpty());
+        assertTrue(cache.get(2).isPresent());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        IntFunction<Optional<BookResponseDTO>> loader = id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(new BookResponseDTO(id, "Title", "Author", LocalDate.now(), 0, null));
+        };
+        Thread first = new Thread(() -> cache.get(1, loader));
+        first.start();
+        loading.await();
+        AtomicReference<Optional<BookResponseDTO>> second = new AtomicReference<>();
+        Thread waiter = new Thread(() -> second.set(cache.get(1, loader)));
+        waiter.start();
+        release.countDown();
+        first.join();
+        waiter.join();
+
+        assertEquals(1, loads.get());
+        assertEquals("Title", second.get().orElseThrow().title());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1, id -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals("Title", cache.get(1, id -> Optional.of(new BookResponseDTO(1, "Title", "Author", LocalDate.now(), 0, null)))
+                .orElseThrow().title());
+    }
+}
@@ -0,0 +1,119 @@
+package spring_tasks.spring_project.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoogleSearchCacheTest {
+
+    private final GoogleSearchCache cache =
+            new GoogleSearchCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), Duration.ofSeconds(10));
+
+    private static final List<GoogleApiResponseDTO> RESULT =
+            List.of(new GoogleApiResponseDTO("id1", "The Hobbit", List.of("J.R.R. Tolkien"), null));
+
+    @Test
+    void testConcurrentIdenticalSearchesMakeOneUpstreamCall() throws Exception {
+        int callers = 50;
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<GoogleApiResponseDTO>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.get("The Hobbit", query -> {
+                        upstreamCalls.incrementAndGet();
+                        awaitQuietly(release);
+                        return RESULT;
+                    });
+                }));
+            }
+            start.countDown();
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<List<GoogleApiResponseDTO>> result : results) {
+                assertEquals(RESULT, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, upstreamCalls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testQueriesAreNormalized() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        cache.get("The Hobbit", query -> {
+            upstreamCalls.incrementAndGet();
+            return RESULT;
+        });
+        cache.get("  the  HOBBIT", query -> {
+            upstreamCalls.incrementAndGet();
+            return RESULT;
+        });
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testEmptyResultsAreCached() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        cache.get("nothing", query -> {
+            upstreamCalls.incrementAndGet();
+            return List.of();
+        });
+        List<GoogleApiResponseDTO> second = cache.get("nothing", query -> {
+            upstreamCalls.incrementAndGet();
+            return List.of();
+        });
+
+        assertTrue(second.isEmpty());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get("boom", query -> {
+            throw new IllegalStateException("upstream down");
+        }));
+
+        List<GoogleApiResponseDTO> result = cache.get("boom", query -> RESULT);
+
+        assertEquals(RESULT, result);
+    }
+
+    @Test
+    void testAnErrorInTheLoaderDoesNotStrandLaterCallers() {
+        assertThrows(AssertionError.class, () -> cache.get("The Hobbit", query -> {
+            throw new AssertionError("loader blew up");
+        }));
+
+        // the failed load is not left in the cache as a future nobody completes
+        assertEquals(RESULT, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> cache.get("The Hobbit", query -> RESULT)));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+package spring_tasks.spring_project.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.resources.ConnectionProvider;
+import spring_tasks.spring_project.config.WebClientConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoogleBooksClientTest {
+
+    private WireMockServer wireMock;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+    private RetryRegistry retryRegistry;
+    private TimeLimiterRegistry timeLimiterRegistry;
+    private GoogleBooksClient client;
+
+    @BeforeEach
+    void setUp() {
+        wireMock = new WireMockServer(options().dynamicPort());
+        wireMock.start();
+
+        WebClientConfig config = new WebClientConfig();
+        connectionProvider = config.googleBooksConnectionProvider(5, 10, Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofMinutes(1));
+        webClient = config.googleBooksWebClient(WebClient.builder(), connectionProvider,
+                wireMock.baseUrl() + "/books/v1/volumes", Duration.ofSeconds(1), Duration.ofSeconds(2), DataSize.ofKilobytes(64));
+
+        retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(3)
+                .waitDuration(Duration.ofMillis(10))
+                .retryExceptions(WebClientRequestException.class, WebClientResponseException.ServiceUnavailable.class, TimeoutException.class)
+                .ignoreExceptions(NoSuchElementException.class)
+                .build());
+        // longer than any stubbed delay except the deliberately slow ones
+        timeLimiterRegistry = TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build());
+        client = newClient(RateLimiterRegistry.ofDefaults(), BulkheadRegistry.ofDefaults());
+    }
+
+    private GoogleBooksClient newClient(RateLimiterRegistry rateLimiterRegistry, BulkheadRegistry bulkheadRegistry) {
+        return new GoogleBooksClient(webClient, CircuitBreakerRegistry.ofDefaults(), retryRegistry, rateLimiterRegistry,
+                bulkheadRegistry, timeLimiterRegistry, "test-key");
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        wireMock.stop();
+    }
+
+    @Test
+    void testSearchVolumesSendsTitleQueryFieldsAndKey() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes"))
+                .withQueryParam("q", equalTo("intitle:The Hobbit"))
+                .withQueryParam("fields", equalTo(GoogleBooksClient.SEARCH_FIELDS))
+                .withHeader("X-Goog-Api-Key", equalTo("test-key"))
+                .withQueryParam("key", absent())
+                .willReturn(okJson("{\"items\":[{\"id\":\"abc\"}]}")));
+
+        byte[] result = client.searchVolumes("The Hobbit").block();
+
+        assertEquals("{\"items\":[{\"id\":\"abc\"}]}", new String(result, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetVolumeRequestsOnlyMappedFields() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/abc"))
+                .withQueryParam("fields", equalTo(GoogleBooksClient.VOLUME_FIELDS))
+                .willReturn(okJson("{\"id\":\"abc\"}")));
+
+        assertEquals("{\"id\":\"abc\"}", new String(client.getVolume("abc").block(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetVolumeNotFoundIsNotRetried() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/missing")).willReturn(notFound()));
+
+        assertThrows(NoSuchElementException.class, () -> client.getVolume("missing").block());
+        wireMock.verify(1, getRequestedFor(urlPathEqualTo("/books/v1/volumes/missing")));
+    }
+
+    @Test
+    void testServiceUnavailableIsRetried() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/flaky")).willReturn(serviceUnavailable()));
+
+        assertThrows(WebClientResponseException.ServiceUnavailable.class, () -> client.getVolume("flaky").block());
+        wireMock.verify(3, getRequestedFor(urlPathEqualTo("/books/v1/volumes/flaky")));
+    }
+
+    @Test
+    void testSlowResponseTimesOut() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/slow"))
+                .willReturn(okJson("{\"id\":\"slow\"}").withFixedDelay(10000)));
+
+        long start = System.nanoTime();
+        assertThrows(WebClientRequestException.class, () -> client.getVolume("slow").block());
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // three attempts bounded by the 2s response timeout, not the 10s upstream delay
+        assertTrue(elapsedMillis < 10000, "took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void testCallsBeyondQuotaAreNotPermitted() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/abc")).willReturn(okJson("{\"id\":\"abc\"}")));
+        GoogleBooksClient limited = newClient(RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(1)
+                .limitRefreshPeriod(Duration.ofMinutes(1))
+                .timeoutDuration(Duration.ZERO)
+                .build()), BulkheadRegistry.ofDefaults());
+
+        assertNotNull(limited.getVolume("abc").block());
+        assertThrows(RequestNotPermitted.class, () -> limited.getVolume("abc").block());
+        wireMock.verify(1, getRequestedFor(urlPathEqualTo("/books/v1/volumes/abc")));
+    }
+
+    @Test
+    void testImportsCannotUseUpTheSharedQuota() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/abc")).willReturn(okJson("{\"id\":\"abc\"}")));
+        RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(2)
+                .limitRefreshPeriod(Duration.ofMinutes(1))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+        rateLimiterRegistry.rateLimiter("googleImportRateLimiter", RateLimiterConfig.custom()
+                .limitForPeriod(1)
+                .limitRefreshPeriod(Duration.ofMinutes(1))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+        GoogleBooksClient limited = newClient(rateLimiterRegistry, BulkheadRegistry.ofDefaults());
+
+        assertNotNull(limited.importVolume("abc").block());
+        assertThrows(RequestNotPermitted.class, () -> limited.importVolume("abc").block());
+        // the import quota ran out first, so an interactive call still finds a shared permit
+        assertNotNull(limited.getVolume("abc").block());
+        wireMock.verify(2, getRequestedFor(urlPathEqualTo("/books/v1/volumes/abc")));
+    }
+
+    @Test
+    void testEachAttemptIsCutOffByTheTimeLimiter() {
+        timeLimiterRegistry = TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(200)).build());
+        GoogleBooksClient limited = newClient(RateLimiterRegistry.ofDefaults(), BulkheadRegistry.ofDefaults());
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/lagging"))
+                .willReturn(okJson("{\"id\":\"lagging\"}").withFixedDelay(1500)));
+
+        long start = System.nanoTime();
+        Exception e = assertThrows(Exception.class, () -> limited.getVolume("lagging").block());
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        wireMock.verify(3, getRequestedFor(urlPathEqualTo("/books/v1/volumes/lagging")));
+        // three 200ms attempts, well before the first 1.5s response would have arrived
+        assertTrue(elapsedMillis < 1500, "took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void testCallsBeyondBulkheadFailFastWithoutReachingGoogle() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/held"))
+                .willReturn(okJson("{\"id\":\"held\"}").withFixedDelay(1000)));
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        GoogleBooksClient isolated = newClient(RateLimiterRegistry.ofDefaults(), bulkheadRegistry);
+
+        var held = isolated.getVolume("held").toFuture();
+        assertThrows(BulkheadFullException.class, () -> isolated.getVolume("held").block());
+
+        assertNotNull(held.join());
+        wireMock.verify(1, getRequestedFor(urlPathEqualTo("/books/v1/volumes/held")));
+    }
+
+    @Test
+    void testCallsTurnedAwayByTheBulkheadKeepTheirRatePermit() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/held"))
+                .willReturn(okJson("{\"id\":\"held\"}").withFixedDelay(500)));
+        RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(2)
+                .limitRefreshPeriod(Duration.ofMinutes(1))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        GoogleBooksClient isolated = newClient(rateLimiterRegistry, bulkheadRegistry);
+
+        var held = isolated.getVolume("held").toFuture();
+        assertThrows(BulkheadFullException.class, () -> isolated.getVolume("held").block());
+        assertNotNull(held.join());
+
+        // the rejected call never reached the rate limiter, so the second permit is still there
+        assertNotNull(isolated.getVolume("held").block());
+        assertEquals(0, rateLimiterRegistry.rateLimiter("googleApiRateLimiter").getMetrics().getAvailablePermissions());
+    }
+
+    @Test
+    void testImportsWaitingForQuotaHoldNoBulkheadSlot() {
+        wireMock.stubFor(get(urlPathEqualTo("/books/v1/volumes/abc")).willReturn(okJson("{\"id\":\"abc\"}")));
+        RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.ofDefaults();
+        rateLimiterRegistry.rateLimiter("googleImportRateLimiter", RateLimiterConfig.custom()
+                .limitForPeriod(1)
+                .limitRefreshPeriod(Duration.ofSeconds(2))
+                .timeoutDuration(Duration.ofSeconds(5))
+                .build());
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        GoogleBooksClient isolated = newClient(rateLimiterRegistry, bulkheadRegistry);
+
+        assertNotNull(isolated.importVolume("abc").block());
+        var waiting = isolated.importVolume("abc").toFuture();
+
+        // the second import waits for the next import permit without taking the only slot
+        assertNotNull(isolated.getVolume("abc").block());
+        assertFalse(waiting.isDone());
+        assertEquals(1, bulkheadRegistry.bulkhead("googleApiBulkhead").getMetrics().getAvailableConcurrentCalls());
+        assertNotNull(waiting.join());
+    }
+}
@@ -0,0 +1,94 @@
+package spring_tasks.spring_project.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoogleVolumeMapperTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GoogleVolumeMapper mapper = new GoogleVolumeMapper(meterRegistry);
+
+    @Test
+    void testReadSearchResultsKeepsMappedFieldsAndSkipsTheRest() {
+        List<GoogleApiResponseDTO> books = mapper.readSearchResults(bytes("""
+                {"kind":"books#volumes","totalItems":2,"items":[
+                  {"id":"a","etag":"x","volumeInfo":{"title":"First","subtitle":"s","authors":["A","B"],
+                    "industryIdentifiers":[{"type":"ISBN_10","identifier":"1"}],"publishedDate":"2001-02-03"},
+                    "saleInfo":{"listPrice":{"amount":1.5}}},
+                  {"id":"b","volumeInfo":{"title":"Second","publishedDate":"1999"}}
+                ]}"""));
+
+        assertEquals(List.of(
+                new GoogleApiResponseDTO("a", "First", List.of("A", "B"), LocalDate.of(2001, 2, 3)),
+                new GoogleApiResponseDTO("b", "Second", List.of("Unknown"), LocalDate.of(1999, 1, 1))), books);
+    }
+
+    @Test
+    void testReadSearchResultsWithoutItemsIsEmpty() {
+        assertTrue(mapper.readSearchResults(bytes("{\"kind\":\"books#volumes\",\"totalItems\":0}")).isEmpty());
+        assertTrue(mapper.readSearchResults(null).isEmpty());
+    }
+
+    @Test
+    void testReadVolumeWithoutVolumeInfoIsEmpty() {
+        assertTrue(mapper.readVolume(bytes("{\"id\":\"a\"}")).isEmpty());
+    }
+
+    @Test
+    void testReadVolumeMapsYearAndMonth() {
+        GoogleApiResponseDTO book = mapper.readVolume(bytes("""
+                {"id":"a","volumeInfo":{"title":"T","authors":["A"],"publishedDate":"2010-05"}}""")).orElseThrow();
+
+        assertEquals(LocalDate.of(2010, 5, 1), book.publishedDate());
+    }
+
+    @Test
+    void testMalformedBodyFails() {
+        assertThrows(GoogleResponseParseException.class, () -> mapper.readSearchResults(bytes("[1,2]")));
+        assertThrows(GoogleResponseParseException.class, () -> mapper.readVolume(bytes("{\"id\":")));
+    }
+
+    @Test
+    void testBadVolumesAreSkippedOrDefaultedAndCounted() {
+        List<GoogleApiResponseDTO> books = mapper.readSearchResults(bytes("""
+                {"items":[
+                  {"volumeInfo":{"title":"No id","publishedDate":"2000"}},
+                  {"id":"b","volumeInfo":{"title":"   ","publishedDate":"2000"}},
+                  {"id":"c","volumeInfo":{"title":"Bad date","authors":[null,"",42,"C"],"publishedDate":"someday"}},
+                  {"id":"d","volumeInfo":{"title":"No date"}},
+                  "not a volume"
+                ]}"""));
+
+        assertEquals(List.of(
+                new GoogleApiResponseDTO("c", "Bad date", List.of("C"), null),
+                new GoogleApiResponseDTO("d", "No date", List.of("Unknown"), null)), books);
+        assertEquals(1, failures("id", "skipped"));
+        assertEquals(1, failures("title", "skipped"));
+        assertEquals(2, failures("publishedDate", "defaulted"));
+        assertEquals(1, failures("item", "skipped"));
+    }
+
+    @Test
+    void testTruncatedBodyKeepsCompleteVolumes() {
+        List<GoogleApiResponseDTO> books = mapper.readSearchResults(bytes("""
+                {"items":[{"id":"a","volumeInfo":{"title":"A","publishedDate":"2000"}},{"id":"b","volumeInfo":{"ti"""));
+
+        assertEquals(List.of("a"), books.stream().map(GoogleApiResponseDTO::id).toList());
+        assertEquals(1, failures("body", "truncated"));
+    }
+
+    private double failures(String field, String action) {
+        return meterRegistry.counter(GoogleVolumeMapper.PARSE_FAILURES, "field", field, "action", action).count();
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
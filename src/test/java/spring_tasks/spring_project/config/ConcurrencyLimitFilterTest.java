@@ -0,0 +1,115 @@
+package spring_tasks.spring_project.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistries = mock(ObjectProvider.class);
+        when(meterRegistries.getIfAvailable(any())).thenReturn(meterRegistry);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.concurrency.external.initial-limit", "2")
+                .withProperty("app.concurrency.external.min-limit", "1")
+                .withProperty("app.concurrency.retry-after", "3s");
+        // Spring Boot converts "3s" style durations in the application environment
+        environment.setConversionService(new ApplicationConversionService());
+        filter = new ConcurrencyLimitFilter(environment, meterRegistries, new ObjectMapper());
+    }
+
+    @Test
+    void testRequestsAreGroupedByEndpoint() {
+        assertEquals(ConcurrencyLimitFilter.Group.EXTERNAL, ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("GET", "/books/search")));
+        assertEquals(ConcurrencyLimitFilter.Group.EXTERNAL, ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("GET", "/books/search/hybrid")));
+        assertEquals(ConcurrencyLimitFilter.Group.EXTERNAL, ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("POST", "/books/addViaAPI/bulk")));
+        assertEquals(ConcurrencyLimitFilter.Group.READS, ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("GET", "/books/addViaAPI/bulk/job-1")));
+        assertEquals(ConcurrencyLimitFilter.Group.READS, ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("GET", "/books/search/local")));
+        assertEquals(ConcurrencyLimitFilter.Group.READS, ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("GET", "/books/7")));
+        assertEquals(ConcurrencyLimitFilter.Group.WRITES, ConcurrencyLimitFilter.groupOf(new MockHttpServletRequest("PATCH", "/books/7")));
+    }
+
+    @Test
+    void testFullExternalGroupIsShedWhileLocalReadsPass() throws Exception {
+        AdaptiveConcurrencyLimiter external = filter.limiter(ConcurrencyLimitFilter.Group.EXTERNAL);
+        // two slow Google searches hold the whole external limit
+        assertTrue(external.tryAcquire() > 0);
+        assertTrue(external.tryAcquire() > 0);
+
+        MockHttpServletResponse shed = perform(new MockHttpServletRequest("GET", "/books/search"));
+        MockHttpServletResponse read = perform(new MockHttpServletRequest("GET", "/books/1"));
+
+        assertEquals(503, shed.getStatus());
+        assertEquals("3", shed.getHeader("Retry-After"));
+        assertTrue(shed.getContentAsString().contains("Too many concurrent requests"));
+        assertEquals(200, read.getStatus());
+        assertEquals(1, meterRegistry.get("books.concurrency.rejected").tag("group", "external").counter().count());
+        assertEquals(2, meterRegistry.get("books.concurrency.in.flight").tag("group", "external").gauge().value());
+        assertEquals(0, meterRegistry.get("books.concurrency.in.flight").tag("group", "reads").gauge().value());
+    }
+
+    @Test
+    void testOtherPathsAreNotLimited() throws Exception {
+        AdaptiveConcurrencyLimiter reads = filter.limiter(ConcurrencyLimitFilter.Group.READS);
+        while (reads.tryAcquire() > 0) {
+            // fill the read limit
+        }
+
+        assertEquals(200, perform(new MockHttpServletRequest("GET", "/hello")).getStatus());
+        assertEquals(503, perform(new MockHttpServletRequest("GET", "/books")).getStatus());
+    }
+
+    @Test
+    void testLimitGrowsWhenUsedAndShrinksWhenSlow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 2, 12, Duration.ofMillis(100), 0.5, meterRegistry);
+        long fast = Duration.ofMillis(10).toNanos();
+        long slow = Duration.ofMillis(500).toNanos();
+
+        // an idle limit stays where it is
+        limiter.release(limiter.tryAcquire(), fast, false);
+        assertEquals(10, limiter.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+            limiter.release(6, fast, false);
+        }
+        assertEquals(12, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.release(6, slow, false);
+        assertEquals(6, limiter.getLimit());
+        for (int i = 0; i < 2; i++) {
+            limiter.tryAcquire();
+            limiter.release(6, fast, true);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,59 @@
+package spring_tasks.spring_project.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplingFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final LogSamplingFilter filter = new LogSamplingFilter();
+
+    @BeforeEach
+    void setUp() {
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        filter.setLoggers("spring_tasks.spring_project.controller, spring_tasks.spring_project.service.BookService");
+        filter.setRate(0.1);
+        filter.start();
+    }
+
+    @Test
+    void testHotPathInfoIsSampled() {
+        Logger controller = context.getLogger("spring_tasks.spring_project.controller.BookController");
+        int kept = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (decide(controller, Level.INFO) == FilterReply.NEUTRAL) {
+                kept++;
+            }
+        }
+        assertTrue(kept > 700 && kept < 1300, "kept " + kept + " of 10000");
+    }
+
+    @Test
+    void testWarningsAndOtherLoggersAlwaysPass() {
+        Logger service = context.getLogger("spring_tasks.spring_project.service.BookService");
+        Logger bulkService = context.getLogger("spring_tasks.spring_project.service.BookServiceBulk");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(service, Level.WARN));
+            assertEquals(FilterReply.NEUTRAL, decide(service, Level.ERROR));
+            assertEquals(FilterReply.NEUTRAL, decide(bulkService, Level.INFO));
+        }
+    }
+
+    @Test
+    void testDisabledLevelsAreLeftToTheLogger() {
+        Logger controller = context.getLogger("spring_tasks.spring_project.controller.BookController");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(controller, Level.DEBUG));
+        }
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return filter.decide(null, logger, level, "message", null, null);
+    }
+}
@@ -0,0 +1,73 @@
+package spring_tasks.spring_project.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggingFilterTest {
+
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    private final LoggingFilter filter = new LoggingFilter();
+
+    @Test
+    void testGeneratedIdsAreW3cCompatible() {
+        for (int i = 0; i < 1000; i++) {
+            String traceId = TraceIds.newTraceId();
+            String spanId = TraceIds.newSpanId();
+            assertTrue(traceId.matches("[0-9a-f]{32}"), traceId);
+            assertTrue(spanId.matches("[0-9a-f]{16}"), spanId);
+            assertEquals(traceId, TraceIds.traceIdOf("00-" + traceId + "-" + spanId + "-01"));
+        }
+    }
+
+    @Test
+    void testInvalidTraceparentIsIgnored() {
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", TraceIds.traceIdOf(TRACEPARENT));
+        assertNull(TraceIds.traceIdOf(null));
+        assertNull(TraceIds.traceIdOf("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+        assertNull(TraceIds.traceIdOf("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceIds.traceIdOf("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"));
+        assertNull(TraceIds.traceIdOf("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+        assertNull(TraceIds.traceIdOf(TRACEPARENT + "-extra"));
+        // later versions may carry more fields
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736",
+                TraceIds.traceIdOf("01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra"));
+    }
+
+    @Test
+    void testIncomingTraceIsJoined() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/1");
+        request.addHeader("traceparent", TRACEPARENT);
+
+        Map<String, String> mdc = filterAndCaptureMdc(request);
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", mdc.get("traceId"));
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", mdc.get("requestId"));
+        assertNotEquals("00f067aa0ba902b7", mdc.get("spanId"));
+        assertNull(MDC.get("traceId"));
+    }
+
+    @Test
+    void testClientRequestIdIsKept() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/1");
+        request.addHeader("X-Request-ID", "client-id");
+
+        Map<String, String> mdc = filterAndCaptureMdc(request);
+
+        assertEquals("client-id", mdc.get("requestId"));
+        assertTrue(mdc.get("traceId").matches("[0-9a-f]{32}"));
+    }
+
+    private Map<String, String> filterAndCaptureMdc(MockHttpServletRequest request) throws Exception {
+        Map<String, String> mdc = new HashMap<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> mdc.putAll(MDC.getCopyOfContextMap()));
+        return mdc;
+    }
+}
@@ -0,0 +1,74 @@
+package spring_tasks.spring_project.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the virtual-thread execution mode: a synchronized method or block that blocks
+ * (JDBC, HTTP, Kafka) pins the carrier thread on Java 21, so application code must use
+ * java.util.concurrent locks instead.
+ */
+class VirtualThreadPinningTest {
+
+    @Test
+    void testApplicationCodeHasNoSynchronizedSections() throws Exception {
+        Resource[] classes = new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:spring_tasks/spring_project/**/*.class");
+        List<String> offenders = new ArrayList<>();
+
+        for (Resource resource : classes) {
+            // test classes live on the same package path, only main classes matter
+            if (resource.getURL().getPath().contains("/test-classes/")) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                new ClassReader(in).accept(new SynchronizedFinder(offenders), ClassReader.SKIP_DEBUG);
+            }
+        }
+
+        assertTrue(classes.length > 0);
+        assertTrue(offenders.isEmpty(), "synchronized sections found: " + offenders);
+    }
+
+    private static class SynchronizedFinder extends ClassVisitor {
+        private final List<String> offenders;
+        private String className;
+
+        SynchronizedFinder(List<String> offenders) {
+            super(Opcodes.ASM9);
+            this.offenders = offenders;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.className = name;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            String method = className + "." + name;
+            if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                offenders.add(method);
+            }
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public void visitInsn(int opcode) {
+                    if (opcode == Opcodes.MONITORENTER) {
+                        offenders.add(method);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package spring_tasks.spring_project.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.repository.BookRepository;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Large book pages leave through the real Tomcat compressed; a strong ETag would stop it from gzipping.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "google.api.key=test-key",
+        "google.api.base-url=https://mock-api.com"
+})
+class BookCompressionTest {
+
+    private static final String AUTH = "Basic " + Base64.getEncoder().encodeToString("ashank:password123".getBytes(StandardCharsets.UTF_8));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void testLargePageIsGzipped() throws Exception {
+        bookRepository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> new Book("Compressible title number " + i, "Author " + i, LocalDate.of(2020, 1, 1)))
+                .toList());
+
+        HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books?size=100"))
+                .header("Authorization", AUTH)
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(response.headers().firstValue("ETag").orElseThrow().startsWith("W/"));
+        String body = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(body.contains("Compressible title number 99"));
+    }
+}
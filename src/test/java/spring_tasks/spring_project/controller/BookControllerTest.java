@@ -1,6 +1,8 @@
 package spring_tasks.spring_project.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,21 +12,41 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 
 import org.springframework.context.annotation.Bean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.TestConstructor;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import spring_tasks.spring_project.dto.BookPageDTO;
 import spring_tasks.spring_project.dto.BookRequestDTO;
 import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.dto.BookVersionDTO;
+import spring_tasks.spring_project.dto.BulkImportResponseDTO;
+import spring_tasks.spring_project.dto.BulkItemResultDTO;
 import spring_tasks.spring_project.dto.GoogleApiRequestDTO;
 import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
+import spring_tasks.spring_project.dto.GoogleImportJobDTO;
+import spring_tasks.spring_project.dto.SearchResultDTO;
 import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.models.BookImage;
+import spring_tasks.spring_project.repository.BookFilter;
+import spring_tasks.spring_project.repository.BookPatch;
+import spring_tasks.spring_project.service.BookBulkService;
 import spring_tasks.spring_project.service.BookService;
+import spring_tasks.spring_project.service.GoogleImportJobService;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -44,32 +66,200 @@ class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private BookBulkService bookBulkService;
+
+    @MockitoBean
+    private GoogleImportJobService googleImportJobService;
+
     @Test
-    void testGetAllBooks() throws Exception {
+    void testGetBooksPage() throws Exception {
         List<BookResponseDTO> books = List.of(
-                new BookResponseDTO(1, "Book 1", "Author", LocalDate.now())
+                new BookResponseDTO(1, "Book 1", "Author", LocalDate.now(), 0, null)
         );
-        when(bookService.getAllBooks()).thenReturn(books);
+        when(bookService.getBooksPage(20, "asc", null, BookFilter.NONE)).thenReturn(new BookPageDTO(books, 1, "next"));
 
         mockMvc.perform(get("/books"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("Book 1"));
+                .andExpect(jsonPath("$.items[0].title").value("Book 1"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void testGetBooksPageAsCbor() throws Exception {
+        List<BookResponseDTO> books = List.of(new BookResponseDTO(1, "Book 1", "Author", LocalDate.of(2024, 6, 5), 2, null));
+        when(bookService.getBooksPage(20, "asc", null, BookFilter.NONE)).thenReturn(new BookPageDTO(books, 1, "next"));
+
+        MvcResult result = mockMvc.perform(get("/books").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn();
+
+        BookPageDTO page = new CBORMapper().findAndRegisterModules().readValue(result.getResponse().getContentAsByteArray(), BookPageDTO.class);
+        assertEquals(books, page.items());
+        assertEquals("next", page.nextCursor());
+        // the same page in another format is another representation
+        String jsonETag = mockMvc.perform(get("/books")).andReturn().getResponse().getHeader("ETag");
+        assertTrue(result.getResponse().getHeader("ETag").endsWith("-cbor\""));
+        assertNotEquals(jsonETag, result.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    void testGetBookByIdAsSmile() throws Exception {
+        BookResponseDTO book = new BookResponseDTO(1, "Book 1", "Author", LocalDate.of(2024, 6, 5), 0, null);
+        when(bookService.getBookById(1)).thenReturn(Optional.of(book));
+
+        MvcResult result = mockMvc.perform(get("/books/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string("ETag", "W/\"0-smile\""))
+                .andReturn();
+
+        assertEquals(book, new SmileMapper().findAndRegisterModules().readValue(result.getResponse().getContentAsByteArray(), BookResponseDTO.class));
+    }
+
+    @Test
+    void testGetBooksPageDefaultsToJson() throws Exception {
+        when(bookService.getBooksPage(20, "asc", null, BookFilter.NONE)).thenReturn(new BookPageDTO(List.of(), 0, null));
+
+        // binary converters come after JSON, so a client that accepts anything still gets JSON
+        mockMvc.perform(get("/books").accept("*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"));
+    }
+
+    @Test
+    void testGetBooksPageRevalidatesWithETag() throws Exception {
+        List<BookResponseDTO> books = List.of(new BookResponseDTO(1, "Book 1", "Author", LocalDate.now(), 0, null));
+        when(bookService.getBooksPage(20, "asc", null, BookFilter.NONE)).thenReturn(new BookPageDTO(books, 1, "next"));
+
+        String etag = mockMvc.perform(get("/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/books").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // a new version of a book on the page changes the tag
+        when(bookService.getBooksPage(20, "asc", null, BookFilter.NONE)).thenReturn(new BookPageDTO(
+                List.of(new BookResponseDTO(1, "Book 1", "Author", LocalDate.now(), 1, null)), 1, "next"));
+        mockMvc.perform(get("/books").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetBooksPageWithCursor() throws Exception {
+        when(bookService.getBooksPage(5, "desc", "abc", BookFilter.NONE)).thenReturn(new BookPageDTO(List.of(), 0, null));
+
+        mockMvc.perform(get("/books").param("size", "5").param("sort", "desc").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(0));
+    }
+
+    @Test
+    void testGetBooksPageWithFilters() throws Exception {
+        BookFilter filter = new BookFilter("Jane Austen", null, LocalDate.of(1800, 1, 1), LocalDate.of(1820, 12, 31));
+        when(bookService.getBooksPage(20, "asc", null, filter)).thenReturn(new BookPageDTO(
+                List.of(new BookResponseDTO(3, "Pride and Prejudice", "Jane Austen", LocalDate.of(1813, 1, 28), 0, null)), 1, null));
+
+        mockMvc.perform(get("/books").param("author", "Jane Austen").param("from", "1800-01-01").param("to", "1820-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(3));
+    }
+
+    @Test
+    void testGetBooksPageRejectsInvertedDateRange() throws Exception {
+        mockMvc.perform(get("/books").param("from", "2020-01-01").param("to", "2019-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetBooksPageInvalidCursor() throws Exception {
+        when(bookService.getBooksPage(20, "asc", "bad", BookFilter.NONE)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/books").param("cursor", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    void testExportBooks() throws Exception {
+        when(bookService.exportBooks(any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
     }
 
     @Test
     void testGetBookById() throws Exception {
-        BookResponseDTO book = new BookResponseDTO(1, "Book 1", "Author", LocalDate.now());
+        BookResponseDTO book = new BookResponseDTO(1, "Book 1", "Author", LocalDate.now(), 3, null);
         when(bookService.getBookById(1)).thenReturn(Optional.of(book));
 
         mockMvc.perform(get("/books/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"3-json\""))
                 .andExpect(jsonPath("$.title").value("Book 1"));
     }
 
+    @Test
+    void testGetBookByIdSendsLastModified() throws Exception {
+        BookResponseDTO book = new BookResponseDTO(1, "Book 1", "Author", LocalDate.now(), 3, Instant.parse("2025-01-01T10:00:00Z"));
+        when(bookService.getBookById(1)).thenReturn(Optional.of(book));
+
+        mockMvc.perform(get("/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Last-Modified", "Wed, 01 Jan 2025 10:00:00 GMT"));
+        verify(bookService, never()).getBookVersion(1);
+    }
+
+    @Test
+    void testGetBookByIdNotModifiedSkipsReadingTheBook() throws Exception {
+        when(bookService.getBookVersion(1)).thenReturn(Optional.of(new BookVersionDTO(3, Instant.parse("2025-01-01T10:00:00Z"))));
+
+        mockMvc.perform(get("/books/1").header("If-None-Match", "W/\"3-json\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"3-json\""))
+                .andExpect(content().string(""));
+        verify(bookService, never()).getBookById(1);
+    }
+
+    @Test
+    void testGetBookByIdNotModifiedSince() throws Exception {
+        when(bookService.getBookVersion(1)).thenReturn(Optional.of(new BookVersionDTO(3, Instant.parse("2025-01-01T10:00:00Z"))));
+
+        mockMvc.perform(get("/books/1").header("If-Modified-Since", "Wed, 01 Jan 2025 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
+        verify(bookService, never()).getBookById(1);
+    }
+
+    @Test
+    void testGetBookByIdWithStaleETagReturnsBook() throws Exception {
+        BookResponseDTO book = new BookResponseDTO(1, "Book 1", "Author", LocalDate.now(), 4, null);
+        when(bookService.getBookVersion(1)).thenReturn(Optional.of(new BookVersionDTO(4, null)));
+        when(bookService.getBookById(1)).thenReturn(Optional.of(book));
+
+        mockMvc.perform(get("/books/1").header("If-None-Match", "W/\"3-json\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"4-json\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
     @Test
     void testAddBook() throws Exception {
         BookRequestDTO bookRequest = new BookRequestDTO("New Book", "Author", LocalDate.now());
-        BookResponseDTO bookResponse = new BookResponseDTO(1, "New Book", "Author", LocalDate.now());
+        BookResponseDTO bookResponse = new BookResponseDTO(1, "New Book", "Author", LocalDate.now(), 0, null);
 
         when(bookService.addBook(any(BookRequestDTO.class))).thenReturn(bookResponse);
 
@@ -80,12 +270,88 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.title").value("New Book"));
     }
 
+    @Test
+    void testAddBooksBulkJson() throws Exception {
+        List<BookRequestDTO> books = List.of(new BookRequestDTO("Bulk Book", "Author", LocalDate.now()));
+        BulkImportResponseDTO response = new BulkImportResponseDTO(1, 0,
+                List.of(new BulkItemResultDTO(0, 1, "CREATED", null)));
+        when(bookBulkService.importBooks(anyList())).thenReturn(response);
+
+        mockMvc.perform(post("/books/bulk")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(books)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"));
+    }
+
+    @Test
+    void testAddBooksBulkNdjson() throws Exception {
+        BulkImportResponseDTO response = new BulkImportResponseDTO(0, 1,
+                List.of(new BulkItemResultDTO(0, null, "REJECTED", "title : Title is required")));
+        when(bookBulkService.importNdjson(any(InputStream.class))).thenReturn(response);
+
+        mockMvc.perform(post("/books/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"author\":\"Author\",\"publishedDate\":\"2020-01-01\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].error").value("title : Title is required"));
+    }
+
+    @Test
+    void testAddViaApiBulkStartsAJob() throws Exception {
+        when(googleImportJobService.submit(List.of("abc", "zzz"))).thenReturn(
+                new GoogleImportJobDTO("job-1", "QUEUED", 2, Instant.parse("2024-01-01T00:00:00Z"), null, null, null));
+
+        mockMvc.perform(post("/books/addViaAPI/bulk")
+                        .contentType("application/json")
+                        .content("{\"ids\":[\"abc\",\"zzz\"]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/books/addViaAPI/bulk/job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.total").value(2));
+        verifyNoInteractions(bookBulkService);
+    }
+
+    @Test
+    void testGetGoogleImportJob() throws Exception {
+        BulkImportResponseDTO response = new BulkImportResponseDTO(1, 1, List.of(
+                new BulkItemResultDTO(0, 1, "CREATED", null),
+                new BulkItemResultDTO(1, null, "NOT_FOUND", "No book found for id: zzz")));
+        when(googleImportJobService.getJob("job-1")).thenReturn(Optional.of(new GoogleImportJobDTO("job-1", "DONE", 2,
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-01T00:00:01Z"), response, null)));
+
+        mockMvc.perform(get("/books/addViaAPI/bulk/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"))
+                .andExpect(jsonPath("$.result.created").value(1))
+                .andExpect(jsonPath("$.result.results[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void testGetUnknownGoogleImportJob() throws Exception {
+        when(googleImportJobService.getJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/books/addViaAPI/bulk/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testAddViaApiBulkRequiresIds() throws Exception {
+        mockMvc.perform(post("/books/addViaAPI/bulk")
+                        .contentType("application/json")
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(googleImportJobService);
+    }
+
     @Test
     void testUpdateBook() throws Exception {
         BookRequestDTO updateRequest = new BookRequestDTO("Updated Book", "Author", LocalDate.now());
-        BookResponseDTO updatedResponse = new BookResponseDTO(1, "Updated Book", "Author", LocalDate.now());
+        BookResponseDTO updatedResponse = new BookResponseDTO(1, "Updated Book", "Author", LocalDate.now(), 0, null);
 
-        when(bookService.updateBook(eq(1), any(BookRequestDTO.class))).thenReturn(Optional.of(updatedResponse));
+        when(bookService.updateBook(eq(1), any(BookRequestDTO.class), isNull())).thenReturn(Optional.of(updatedResponse));
 
         mockMvc.perform(put("/books/1")
                         .contentType("application/json")
@@ -94,15 +360,125 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.title").value("Updated Book"));
     }
 
+    @Test
+    void testUpdateBookIfMatchPassesVersion() throws Exception {
+        BookRequestDTO updateRequest = new BookRequestDTO("Updated Book", "Author", LocalDate.now());
+        BookResponseDTO updatedResponse = new BookResponseDTO(1, "Updated Book", "Author", LocalDate.now(), 4, null);
+        when(bookService.updateBook(eq(1), any(BookRequestDTO.class), eq(3L))).thenReturn(Optional.of(updatedResponse));
+
+        mockMvc.perform(put("/books/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"4-json\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void testUpdateBookWithStaleIfMatchIsPreconditionFailed() throws Exception {
+        BookRequestDTO updateRequest = new BookRequestDTO("Updated Book", "Author", LocalDate.now());
+        when(bookService.updateBook(eq(1), any(BookRequestDTO.class), eq(2L)))
+                .thenThrow(new OptimisticLockingFailureException("Book with ID 1 was modified, version 2 is stale"));
+
+        mockMvc.perform(put("/books/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+    }
+
+    @Test
+    void testUpdateBookRejectsMalformedIfMatch() throws Exception {
+        BookRequestDTO updateRequest = new BookRequestDTO("Updated Book", "Author", LocalDate.now());
+
+        mockMvc.perform(put("/books/1")
+                        .header("If-Match", "\"two\"")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void testUpdateBookWithWeakIfMatchIsPreconditionFailed() throws Exception {
+        BookRequestDTO updateRequest = new BookRequestDTO("Updated Book", "Author", LocalDate.now());
+
+        // If-Match compares strongly, so even the current version's weak ETag does not match
+        mockMvc.perform(put("/books/1")
+                        .header("If-Match", "W/\"3-json\"")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void testPatchBookPassesOnlyPresentFields() throws Exception {
+        BookPatch patch = new BookPatch(new BookImage("Fixed Title", null, null), List.of(BookPatch.TITLE));
+        when(bookService.patchBook(1, patch, 1L)).thenReturn(Optional.of(new BookVersionDTO(2, Instant.parse("2025-01-01T00:00:00Z"))));
+
+        mockMvc.perform(patch("/books/1")
+                        .header("If-Match", "\"1-json\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"title\":\"Fixed Title\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "W/\"2-json\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testPatchBookCannotRemoveRequiredField() throws Exception {
+        // a null value is passed on as a change to null, which the service rejects
+        BookPatch removeAuthor = new BookPatch(new BookImage(null, null, null), List.of(BookPatch.AUTHOR));
+        when(bookService.patchBook(1, removeAuthor, null)).thenThrow(new IllegalArgumentException("author : Author is required"));
+
+        mockMvc.perform(patch("/books/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"author\":null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("author : Author is required"));
+    }
+
+    @Test
+    void testPatchBookRejectsUnreadableDate() throws Exception {
+        mockMvc.perform(patch("/books/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"publishedDate\":\"someday\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid input format: publishedDate"));
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void testPatchBookRejectsUnknownField() throws Exception {
+        mockMvc.perform(patch("/books/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"isbn\":\"123\"}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookService);
+    }
+
     @Test
     void testDeleteBook() throws Exception {
-        when(bookService.deleteBook(1)).thenReturn(true);
+        when(bookService.deleteBook(1, null)).thenReturn(true);
 
         mockMvc.perform(delete("/books/1"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Book removed"));
     }
 
+    @Test
+    void testDeleteBookIfMatchPassesVersion() throws Exception {
+        when(bookService.deleteBook(1, 5L)).thenReturn(true);
+
+        mockMvc.perform(delete("/books/1").header("If-Match", "\"5\""))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void testSearchBooks() throws Exception {
         List<GoogleApiResponseDTO> searchResults = List.of(
@@ -118,6 +494,35 @@ class BookControllerTest {
                 .andExpect(jsonPath("$[0].id").value("id1"));
     }
 
+    @Test
+    void testSearchLocal() throws Exception {
+        when(bookService.searchLocal("tolk*", 20)).thenReturn(List.of(new BookResponseDTO(1, "The Hobbit", "J.R.R. Tolkien", null, 0, null)));
+
+        mockMvc.perform(get("/books/search/local").param("q", "tolk*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("The Hobbit"));
+    }
+
+    @Test
+    void testSearchLocalInvalidQuery() throws Exception {
+        when(bookService.searchLocal("title:(", 20)).thenThrow(new IllegalArgumentException("Invalid search query: title:("));
+
+        mockMvc.perform(get("/books/search/local").param("q", "title:("))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchHybrid() throws Exception {
+        when(bookService.searchHybrid("The Hobbit", 10)).thenReturn(List.of(
+                new SearchResultDTO("1", "The Hobbit", List.of("J.R.R. Tolkien"), null, "LOCAL"),
+                new SearchResultDTO("g1", "The Hobbit", List.of("Someone Else"), null, "GOOGLE")));
+
+        mockMvc.perform(get("/books/search/hybrid").param("title", "The Hobbit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].source").value("LOCAL"))
+                .andExpect(jsonPath("$[1].source").value("GOOGLE"));
+    }
+
     @Test
     void testSearchBooksFallback() throws Exception {
         // Simulate fallback by returning the fallback response directly
@@ -32,7 +32,8 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import spring_tasks.spring_project.client.GoogleBooksClient;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -43,6 +44,7 @@ import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
 import spring_tasks.spring_project.models.Book;
 import spring_tasks.spring_project.repository.BookRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -94,7 +96,7 @@ public class IntegrationTest {
 
 
     @MockitoBean
-    private RestTemplate restTemplate;
+    private GoogleBooksClient googleBooksClient;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -127,7 +129,7 @@ public class IntegrationTest {
         // Fetch all books
         mockMvc.perform(MockMvcRequestBuilders.get("/books"))
                 .andExpect(status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].title").value("Test Book"));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].title").value("Test Book"));
     }
     @Test
     void shouldDeleteBook() throws Exception {
@@ -187,8 +189,7 @@ public class IntegrationTest {
         items.add(item);
         response.set("items", items);
 
-        when(restTemplate.getForEntity(anyString(), eq(JsonNode.class)))
-                .thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.just(response.toString().getBytes(StandardCharsets.UTF_8)));
 
         mockMvc.perform(get("/books/search")
                         .param("title", "Test Book"))
@@ -215,9 +216,8 @@ public class IntegrationTest {
         // Attach volumeInfo inside response
         response.set("volumeInfo", volumeInfo);
 
-        // Mock RestTemplate API call
-        when(restTemplate.getForEntity(anyString(), eq(JsonNode.class)))
-                .thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
+        // Mock Google Books API call
+        when(googleBooksClient.getVolume(anyString())).thenReturn(Mono.just(response.toString().getBytes(StandardCharsets.UTF_8)));
 
         // Request DTO
         GoogleApiRequestDTO id = new GoogleApiRequestDTO("test-id-1");
@@ -0,0 +1,59 @@
+package spring_tasks.spring_project.kafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventDeserializer;
+import spring_tasks.spring_project.kafka.event.BookEventSchemaRegistry;
+import spring_tasks.spring_project.kafka.event.BookEventSerializer;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class KafkaConsumerServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BookEventSchemaRegistry schemaRegistry = new BookEventSchemaRegistry();
+    private final BookEventSerializer serializer = new BookEventSerializer(schemaRegistry);
+    private final KafkaConsumerService consumerService =
+            new KafkaConsumerService(new BookEventDeserializer(schemaRegistry), meterRegistry);
+
+    @Test
+    void testBatchIsAcknowledgedOnceProcessed() {
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumerService.listen(List.of(record(0, event("first")), record(1, event("second"))), ack);
+
+        verify(ack, times(1)).acknowledge();
+        assertEquals(2.0, meterRegistry.counter("books.notifications.received").count());
+    }
+
+    @Test
+    void testPoisonRecordIsReportedByIndex() {
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        BatchListenerFailedException ex = assertThrows(BatchListenerFailedException.class,
+                () -> consumerService.listen(List.of(record(0, event("first")), record(1, "not an event".getBytes()),
+                        record(2, event("third"))), ack));
+
+        assertEquals(1, ex.getIndex());
+        verify(ack, never()).acknowledge();
+    }
+
+    private byte[] event(String title) {
+        return serializer.serialize("book-notification",
+                BookEvent.created(1, new BookImage(title, "Author", LocalDate.of(2020, 1, 1)), 0L, Instant.now()));
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, byte[] value) {
+        return new ConsumerRecord<>("book-notification", 0, offset, null, value);
+    }
+}
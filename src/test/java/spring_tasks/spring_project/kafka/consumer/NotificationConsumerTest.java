@@ -0,0 +1,86 @@
+package spring_tasks.spring_project.kafka.consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventSerializer;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the batch listener against an embedded broker: good records are consumed,
+ * a poison record ends up on the dead-letter topic, and lag gauges are registered.
+ */
+@SpringBootTest(properties = {
+        "app.kafka.enabled=true",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "app.kafka.outbox.poll-interval=100ms",
+        "app.kafka.consumer.retry.interval=100ms",
+        "google.api.key=test-key"
+})
+@EmbeddedKafka(partitions = 6, topics = {"book-notification", "book-notification.DLT"})
+class NotificationConsumerTest {
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private BookEventSerializer bookEventSerializer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void testPoisonRecordGoesToDeadLetterTopic() throws Exception {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dlt-test", "false", broker);
+        try (Consumer<String, byte[]> dlt = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(dlt, "book-notification.DLT");
+            double receivedBefore = meterRegistry.counter("books.notifications.received").count();
+
+            byte[] poison = "New Book Added: Poison by Author".getBytes(StandardCharsets.UTF_8);
+            kafkaTemplate.send("book-notification", "dlt-test", event("Good"));
+            kafkaTemplate.send("book-notification", "dlt-test", poison);
+            kafkaTemplate.send("book-notification", "dlt-test", event("After"));
+
+            ConsumerRecord<String, byte[]> parked = KafkaTestUtils.getSingleRecord(dlt, "book-notification.DLT", Duration.ofSeconds(20));
+            assertArrayEquals(poison, parked.value());
+            assertNotNull(parked.headers().lastHeader("kafka_dlt-exception-message"));
+
+            // the records around the poison one are still processed
+            long deadline = System.currentTimeMillis() + 10000;
+            while (meterRegistry.counter("books.notifications.received").count() < receivedBefore + 2
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(meterRegistry.counter("books.notifications.received").count() >= receivedBefore + 2);
+        }
+        assertNotNull(meterRegistry.find("kafka.consumer.fetch.manager.records.lag.max").gauge());
+    }
+
+    private byte[] event(String title) {
+        return bookEventSerializer.serialize("book-notification",
+                BookEvent.created(1, new BookImage(title, "Author", LocalDate.of(2020, 1, 1)), 0L, Instant.now()));
+    }
+}
@@ -0,0 +1,119 @@
+package spring_tasks.spring_project.kafka.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookEventSerdeTest {
+
+    private final BookEventSchemaRegistry schemaRegistry = new BookEventSchemaRegistry();
+    private final BookEventSerializer serializer = new BookEventSerializer(schemaRegistry);
+    private final BookEventDeserializer deserializer = new BookEventDeserializer(schemaRegistry);
+
+    @Test
+    void testRoundTripKeepsEveryField() {
+        BookEvent event = new BookEvent(BookEventType.UPDATED, 42,
+                new BookImage("The Hobit", "Tolkien", null),
+                new BookImage("The Hobbit", "J.R.R. Tolkien", LocalDate.of(1937, 9, 21)),
+                List.of(), 3L, Instant.ofEpochMilli(1_700_000_000_123L));
+
+        assertEquals(event, deserializer.deserialize("book-notification", serializer.serialize("book-notification", event)));
+    }
+
+    @Test
+    void testCreatedEventHasNoBeforeImage() {
+        BookEvent event = new BookEvent(BookEventType.CREATED, 42, null,
+                new BookImage("The Hobbit", "J.R.R. Tolkien", LocalDate.of(1937, 9, 21)), List.of(), null, Instant.ofEpochMilli(1_000L));
+
+        assertEquals(event, deserializer.deserialize("book-notification", serializer.serialize("book-notification", event)));
+    }
+
+    @Test
+    void testDeletedEventKeepsOnlyBeforeImage() {
+        BookEvent event = new BookEvent(BookEventType.DELETED, 7,
+                new BookImage("Gone", "Author", LocalDate.of(2020, 1, 1)), null, List.of(), null, Instant.ofEpochMilli(1_000L));
+
+        assertEquals(event, deserializer.deserialize("book-notification", serializer.serialize("book-notification", event)));
+    }
+
+    @Test
+    void testPatchedEventKeepsOnlyChangedFields() {
+        BookEvent event = BookEvent.patched(42, new BookImage("The Hobbit", null, null), List.of("title"), 4L, Instant.ofEpochMilli(1_000L));
+
+        BookEvent read = deserializer.deserialize("book-notification", serializer.serialize("book-notification", event));
+
+        assertEquals(List.of("title"), read.changedFields());
+        assertEquals(new BookImage("The Hobbit", null, null), read.after());
+        assertNull(read.before());
+    }
+
+    @Test
+    void testVersionOneEventIsReadAsAfterImage() throws Exception {
+        Schema v1 = schemaRegistry.getById(1);
+        GenericRecord record = new GenericData.Record(v1);
+        record.put("type", new GenericData.EnumSymbol(v1.getField("type").schema(), "CREATED"));
+        record.put("bookId", 5);
+        record.put("title", "Old");
+        record.put("author", "Writer");
+        record.put("timestamp", 1_000L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{0, 0, 0, 0, 1});
+        BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(v1).write(record, encoder);
+        encoder.flush();
+
+        BookEvent event = deserializer.deserialize("book-notification", out.toByteArray());
+
+        assertNull(event.before());
+        assertEquals(new BookImage("Old", "Writer", null), event.after());
+        assertEquals(List.of(), event.changedFields());
+    }
+
+    @Test
+    void testRecordStartsWithMagicByteAndSchemaId() {
+        byte[] bytes = serializer.serialize("book-notification",
+                BookEvent.updated(1, new BookImage("S", "A", null), new BookImage("T", "A", LocalDate.of(2020, 1, 1)), 1L, Instant.now()));
+
+        assertEquals(0, bytes[0]);
+        assertEquals(schemaRegistry.currentId(), bytes[4]);
+    }
+
+    @Test
+    void testBinaryIsMuchSmallerThanJson() throws Exception {
+        BookEvent event = BookEvent.created(42, new BookImage("Pride and Prejudice", "Jane Austen", LocalDate.of(1813, 1, 28)), 0L, Instant.now());
+        byte[] json = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(event);
+
+        assertTrue(serializer.serialize("book-notification", event).length * 2 < json.length);
+    }
+
+    @Test
+    void testTextPayloadIsRejected() {
+        byte[] text = "New Book Added: Title by Author".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("book-notification", text));
+    }
+
+    @Test
+    void testUnknownSchemaIdIsRejected() {
+        byte[] bytes = serializer.serialize("book-notification",
+                BookEvent.deleted(1, new BookImage("T", "A", null), 1L, Instant.now()));
+        bytes[4] = 99;
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("book-notification", bytes));
+    }
+}
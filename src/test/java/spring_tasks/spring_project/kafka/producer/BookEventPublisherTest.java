@@ -0,0 +1,69 @@
+package spring_tasks.spring_project.kafka.producer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventType;
+import spring_tasks.spring_project.models.BookChange;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookEventPublisherTest {
+
+    private static final BookImage BEFORE = new BookImage("Title", "Author", null);
+    private static final BookImage AFTER = new BookImage("New Title", "Author", null);
+    private static final Instant AT = Instant.parse("2025-01-01T00:00:00Z");
+
+    private KafkaProducerService notificationProducer;
+    private ApplicationEventPublisher eventPublisher;
+    private BookEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        notificationProducer = mock(KafkaProducerService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        publisher = new BookEventPublisher();
+        ReflectionTestUtils.setField(publisher, "notificationProducer", notificationProducer);
+        ReflectionTestUtils.setField(publisher, "eventPublisher", eventPublisher);
+    }
+
+    @Test
+    void testInsertBecomesCreated() {
+        publisher.onBookChange(new BookChange(7, null, AFTER, 0L, AT));
+
+        assertEquals(BookEvent.created(7, AFTER, 0L, AT), sent());
+    }
+
+    @Test
+    void testUpdateKeepsBothImages() {
+        publisher.onBookChange(new BookChange(7, BEFORE, AFTER, 1L, AT));
+
+        BookEvent event = sent();
+        assertEquals(BookEventType.UPDATED, event.type());
+        assertEquals(BEFORE, event.before());
+        assertEquals(AFTER, event.after());
+        assertEquals(1L, event.version());
+    }
+
+    @Test
+    void testDeleteBecomesDeleted() {
+        publisher.onBookChange(new BookChange(7, BEFORE, null, 1L, AT));
+
+        assertEquals(BookEvent.deleted(7, BEFORE, 1L, AT), sent());
+    }
+
+    // the event goes to the outbox and on to the in-process listeners
+    private BookEvent sent() {
+        ArgumentCaptor<BookEvent> captor = ArgumentCaptor.forClass(BookEvent.class);
+        verify(notificationProducer).publish(captor.capture());
+        verify(eventPublisher).publishEvent(captor.getValue());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,146 @@
+package spring_tasks.spring_project.kafka.producer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import spring_tasks.spring_project.dto.BookRequestDTO;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.dto.BulkImportResponseDTO;
+import spring_tasks.spring_project.dto.BulkItemResultDTO;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventDeserializer;
+import spring_tasks.spring_project.kafka.event.BookEventType;
+import spring_tasks.spring_project.repository.OutboxEventRepository;
+import spring_tasks.spring_project.service.BookBulkService;
+import spring_tasks.spring_project.service.BookService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End to end: a book change leaves an outbox row, the relay publishes it to the embedded broker
+ * keyed by the book id and removes the row once the broker acknowledged it.
+ */
+@SpringBootTest(properties = {
+        "app.kafka.enabled=true",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "app.kafka.outbox.poll-interval=100ms",
+        "app.kafka.consumer.retry.interval=100ms",
+        "google.api.key=test-key"
+})
+@EmbeddedKafka(partitions = 6, topics = {"book-notification", "book-notification.DLT"})
+class NotificationPipelineTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookBulkService bookBulkService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private BookEventDeserializer bookEventDeserializer;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void testSavedBookIsPublishedWithItsIdAsKey() throws Exception {
+        try (Consumer<String, byte[]> consumer = subscribe("pipeline-test")) {
+            BookResponseDTO book = bookService.addBook(new BookRequestDTO("Outbox Title", "Author", LocalDate.of(2020, 1, 1)));
+
+            List<BookEvent> events = eventsFor(consumer, book.id(), 1);
+            assertEquals(BookEventType.CREATED, events.get(0).type());
+            assertEquals(book.id(), events.get(0).bookId());
+            assertEquals("Outbox Title", events.get(0).after().title());
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outboxEventRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void testEveryChangeIsPublishedInOrderWithItsVersion() {
+        try (Consumer<String, byte[]> consumer = subscribe("change-test")) {
+            BookResponseDTO book = bookService.addBook(new BookRequestDTO("First Title", "Author", LocalDate.of(2020, 1, 1)));
+            BookResponseDTO updated = bookService.updateBook(book.id(),
+                    new BookRequestDTO("Second Title", "Author", LocalDate.of(2020, 1, 1)), book.version()).orElseThrow();
+            // the update evicted the cached book; reading it caches the revision the delete replaces
+            bookService.getBookById(book.id());
+            bookService.deleteBook(book.id(), updated.version());
+
+            List<BookEvent> events = eventsFor(consumer, book.id(), 3);
+
+            assertEquals(List.of(BookEventType.CREATED, BookEventType.UPDATED, BookEventType.DELETED),
+                    events.stream().map(BookEvent::type).toList());
+            assertEquals(List.of(0L, 1L, 1L), events.stream().map(BookEvent::version).toList());
+            assertNull(events.get(0).before());
+            assertEquals("First Title", events.get(0).after().title());
+            // the cached book at the replaced version is the before image of update and delete
+            assertEquals("First Title", events.get(1).before().title());
+            assertEquals("Second Title", events.get(1).after().title());
+            assertEquals("Second Title", events.get(2).before().title());
+            assertNull(events.get(2).after());
+        }
+    }
+
+    @Test
+    void testBulkImportQueuesOneEventPerBook() {
+        try (Consumer<String, byte[]> consumer = subscribe("bulk-test")) {
+            BulkImportResponseDTO result = bookBulkService.importBooks(List.of(
+                    new BookRequestDTO("Bulk One", "Author", LocalDate.of(2020, 1, 1)),
+                    new BookRequestDTO("Bulk Two", "Author", LocalDate.of(2020, 1, 1))));
+
+            // the chunk clears the persistence context before commit, the queued events must survive it
+            List<Integer> ids = result.results().stream().map(BulkItemResultDTO::id).toList();
+            List<BookEvent> events = eventsFor(consumer, ids, 2);
+            assertTrue(events.stream().allMatch(event -> event.type() == BookEventType.CREATED));
+        }
+    }
+
+    private Consumer<String, byte[]> subscribe(String group) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(group, "false", broker);
+        Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer();
+        broker.consumeFromAnEmbeddedTopic(consumer, "book-notification");
+        return consumer;
+    }
+
+    private List<BookEvent> eventsFor(Consumer<String, byte[]> consumer, int bookId, int expected) {
+        return eventsFor(consumer, List.of(bookId), expected);
+    }
+
+    // other tests share the topic, so keep only these books' records
+    private List<BookEvent> eventsFor(Consumer<String, byte[]> consumer, List<Integer> bookIds, int expected) {
+        List<String> keys = bookIds.stream().map(String::valueOf).toList();
+        List<BookEvent> events = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (events.size() < expected && System.currentTimeMillis() < deadline) {
+            for (ConsumerRecord<String, byte[]> record : KafkaTestUtils.getRecords(consumer, Duration.ofMillis(500), 0)) {
+                if (keys.contains(record.key())) {
+                    events.add(bookEventDeserializer.deserialize(record.topic(), record.value()));
+                }
+            }
+        }
+        assertEquals(expected, events.size());
+        return events;
+    }
+}
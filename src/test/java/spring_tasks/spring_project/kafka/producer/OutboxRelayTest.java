@@ -0,0 +1,164 @@
+package spring_tasks.spring_project.kafka.producer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring_tasks.spring_project.models.OutboxEvent;
+import spring_tasks.spring_project.repository.OutboxEventRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private OutboxEventRepository outboxEventRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(kafkaTemplate, outboxEventRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry);
+    }
+
+    @Test
+    void testDeliveredEventsAreDeletedAndKeyedByBookId() {
+        byte[] payload = {0, 0, 0, 0, 1, 2};
+        OutboxEvent event = event(1, "7", payload);
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of(event));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertEquals(1, relay.relayBatch());
+
+        verify(kafkaTemplate).send(new ProducerRecord<>("book-notification", "7", payload));
+        verify(outboxEventRepository).deleteAllByIdInBatch(argThat(ids -> ids.iterator().next() == 1L));
+        assertEquals(1.0, meterRegistry.counter("books.notifications.sent").count());
+    }
+
+    @Test
+    void testFailedEventsStayForTheNextPoll() {
+        OutboxEvent delivered = event(1, "1", new byte[]{1});
+        OutboxEvent failed = event(2, "2", new byte[]{2});
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of(delivered, failed));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertEquals(0, relay.relayBatch());
+
+        verify(outboxEventRepository).deleteAllByIdInBatch(argThat(ids -> ids.iterator().next() == 1L));
+        verify(outboxEventRepository).saveAll(argThat(events -> events.iterator().next() == failed));
+        assertEquals(1, failed.getAttempts());
+        assertEquals("broker down", failed.getLastError());
+        assertEquals(1.0, meterRegistry.counter("books.notifications.failed").count());
+    }
+
+    @Test
+    void testSendThatCannotBeQueuedCountsAsFailure() {
+        OutboxEvent event = event(1, "1", new byte[]{1});
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of(event));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenThrow(new IllegalStateException("metadata timeout"));
+
+        assertEquals(0, relay.relayBatch());
+
+        assertEquals(1, event.getAttempts());
+        verify(outboxEventRepository).saveAll(anyCollection());
+    }
+
+    @Test
+    void testFailedEventHoldsBackLaterEventsOfTheSameKey() {
+        OutboxEvent first = event(1, "7", new byte[]{1});
+        OutboxEvent second = event(2, "7", new byte[]{2});
+        OutboxEvent other = event(3, "8", new byte[]{3});
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of(first, second, other));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, byte[]> record = invocation.getArgument(0);
+            return record.key().equals("7")
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        assertEquals(0, relay.relayBatch());
+
+        verify(kafkaTemplate, times(2)).send(any(ProducerRecord.class));
+        verify(kafkaTemplate, never()).send(new ProducerRecord<>("book-notification", "7", second.getPayload()));
+        verify(outboxEventRepository).deleteAllByIdInBatch(argThat(ids -> ((Collection<?>) ids).size() == 1 && ids.iterator().next() == 3L));
+        assertEquals(1, first.getAttempts());
+        assertEquals(0, second.getAttempts());
+    }
+
+    @Test
+    void testEventsOfOneKeyAreSentInWriteOrder() {
+        OutboxEvent first = event(1, "7", new byte[]{1});
+        OutboxEvent second = event(2, "7", new byte[]{2});
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertEquals(2, relay.relayBatch());
+
+        var inOrder = inOrder(kafkaTemplate);
+        inOrder.verify(kafkaTemplate).send(new ProducerRecord<>("book-notification", "7", first.getPayload()));
+        inOrder.verify(kafkaTemplate).send(new ProducerRecord<>("book-notification", "7", second.getPayload()));
+    }
+
+    @Test
+    void testKeyWithAnOlderEventElsewhereWaits() {
+        OutboxEvent waiting = event(5, "7", new byte[]{1});
+        OutboxEvent free = event(6, "8", new byte[]{2});
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of(waiting, free));
+        when(outboxEventRepository.findKeysPendingBefore(anyCollection(), eq(6L), anyCollection())).thenReturn(List.of("7"));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertEquals(0, relay.relayBatch());
+
+        verify(kafkaTemplate).send(new ProducerRecord<>("book-notification", "8", free.getPayload()));
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        assertEquals(0, waiting.getAttempts());
+    }
+
+    @Test
+    void testEventIsParkedAfterMaxAttempts() {
+        ReflectionTestUtils.setField(relay, "maxAttempts", 2);
+        OutboxEvent poison = event(1, "7", new byte[]{1});
+        poison.recordFailure("record too large");
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of(poison));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("record too large")));
+
+        relay.relayBatch();
+
+        assertEquals(2, poison.getAttempts());
+        assertNotNull(poison.getParkedAt());
+        assertEquals(1.0, meterRegistry.counter("books.notifications.parked").count());
+    }
+
+    @Test
+    void testEmptyOutboxSendsNothing() {
+        when(outboxEventRepository.lockPending(Limit.of(500))).thenReturn(List.of());
+
+        relay.relayPending();
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static OutboxEvent event(long id, String key, byte[] payload) {
+        OutboxEvent event = new OutboxEvent("book-notification", key, payload);
+        ReflectionTestUtils.setField(event, "id", id);
+        return event;
+    }
+}
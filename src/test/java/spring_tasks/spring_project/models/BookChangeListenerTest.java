@@ -0,0 +1,76 @@
+package spring_tasks.spring_project.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookChangeListenerTest {
+
+    private ApplicationEventPublisher eventPublisher;
+    private BookChangeListener listener;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        listener = new BookChangeListener();
+        ReflectionTestUtils.setField(listener, "eventPublisher", eventPublisher);
+        book = new Book("Title", "Author", LocalDate.of(2020, 1, 1));
+        book.setId(7);
+    }
+
+    @Test
+    void testInsertPublishesAfterImage() {
+        book.setUpdatedAt(Instant.parse("2025-01-01T00:00:00Z"));
+
+        listener.onInsert(book);
+
+        BookChange change = published();
+        assertEquals(7, change.bookId());
+        assertNull(change.before());
+        assertEquals(new BookImage("Title", "Author", LocalDate.of(2020, 1, 1)), change.after());
+        assertEquals(0L, change.version());
+        assertEquals(Instant.parse("2025-01-01T00:00:00Z"), change.timestamp());
+    }
+
+    @Test
+    void testUpdatePublishesLoadedStateAsBeforeImage() {
+        listener.onLoad(book);
+        book.setTitle("New Title");
+        book.setVersion(1);
+
+        listener.onUpdate(book);
+
+        BookChange change = published();
+        assertEquals("Title", change.before().title());
+        assertEquals("New Title", change.after().title());
+        assertEquals(1L, change.version());
+        // the next change starts from what was just written
+        assertEquals("New Title", book.getLoadedState().title());
+    }
+
+    @Test
+    void testDeletePublishesOnlyBeforeImage() {
+        listener.onLoad(book);
+
+        listener.onDelete(book);
+
+        BookChange change = published();
+        assertEquals("Title", change.before().title());
+        assertNull(change.after());
+    }
+
+    private BookChange published() {
+        ArgumentCaptor<BookChange> captor = ArgumentCaptor.forClass(BookChange.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        return captor.getValue();
+    }
+}
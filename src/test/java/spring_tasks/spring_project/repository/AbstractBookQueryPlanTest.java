@@ -0,0 +1,96 @@
+package spring_tasks.spring_project.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the filtered page queries exactly as Hibernate generates them and checks the plan the
+ * database picks uses the book indexes, and that a patch writes only the columns it sets.
+ * Subclasses supply the database and how to explain.
+ * Inherited test methods only run in a rolled-back transaction when the declaring class asks for it.
+ */
+@Transactional
+abstract class AbstractBookQueryPlanTest {
+
+    static final String INSPECTOR_PROPERTY =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=spring_tasks.spring_project.repository.CapturingStatementInspector";
+
+    @Autowired
+    protected BookRepository bookRepository;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    // rows go in with plain JDBC so the test does not depend on the entity listeners
+    @BeforeEach
+    void insertBooks() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            rows.add(new Object[]{i, "Title " + i, "Author " + (i % 100), LocalDate.of(1900, 1, 1).plusDays(i * 20L), 0L});
+        }
+        jdbcTemplate.batchUpdate("insert into book (id, title, author, published_date, version) values (?, ?, ?, ?, ?)", rows);
+        CapturingStatementInspector.clear();
+    }
+
+    // the plan the database would use for the SQL with these parameters
+    protected abstract String explain(String sql, Object... params);
+
+    @Test
+    void testAuthorFilterUsesAuthorIndex() {
+        List<BookResponseDTO> page = bookRepository.findPage(new BookFilter("Author 7", null, null, null), 500, Sort.Direction.ASC, 5);
+
+        assertEquals(List.of(507, 607, 707, 807, 907), page.stream().map(BookResponseDTO::id).toList());
+        assertUsesIndex("idx_book_author", explain(CapturingStatementInspector.last(), "Author 7", 500, 5));
+    }
+
+    @Test
+    void testTitleFilterUsesTitleIndex() {
+        List<BookResponseDTO> page = bookRepository.findPage(new BookFilter(null, "Title 42", null, null), null, Sort.Direction.ASC, 5);
+
+        assertEquals(List.of(new BookResponseDTO(42, "Title 42", "Author 42", LocalDate.of(1900, 1, 1).plusDays(840), 0, null)), page);
+        assertUsesIndex("idx_book_title", explain(CapturingStatementInspector.last(), "Title 42", 5));
+    }
+
+    @Test
+    void testDateRangeUsesPublishedDateIndex() {
+        LocalDate from = LocalDate.of(1900, 1, 1).plusDays(200);
+        LocalDate to = LocalDate.of(1900, 1, 1).plusDays(260);
+        List<BookResponseDTO> page = bookRepository.findPage(new BookFilter(null, null, from, to), null, Sort.Direction.DESC, 10);
+
+        assertEquals(List.of(13, 12, 11, 10), page.stream().map(BookResponseDTO::id).toList());
+        assertUsesIndex("idx_book_published_date", explain(CapturingStatementInspector.last(), from, to, 10));
+    }
+
+    @Test
+    void testPatchWritesOnlyPatchedColumns() {
+        BookPatch patch = new BookPatch(new BookImage("Patched", null, null), List.of(BookPatch.TITLE));
+
+        assertEquals(1, bookRepository.patch(42, 0L, patch, Instant.EPOCH));
+        String sql = CapturingStatementInspector.last().toLowerCase(Locale.ROOT);
+        assertTrue(sql.startsWith("update book") && sql.contains(" set title=?,version="), sql);
+        assertFalse(sql.contains("author") || sql.contains("published_date"), sql);
+
+        // the version moved on, so a second patch against version 0 changes nothing
+        assertEquals(0, bookRepository.patch(42, 0L, patch, Instant.EPOCH));
+        assertEquals(List.of(new BookResponseDTO(42, "Patched", "Author 42", LocalDate.of(1900, 1, 1).plusDays(840), 1, Instant.EPOCH)),
+                bookRepository.findPage(new BookFilter(null, "Patched", null, null), null, Sort.Direction.ASC, 5));
+    }
+
+    private static void assertUsesIndex(String index, String plan) {
+        assertTrue(plan.toLowerCase(Locale.ROOT).contains(index), "plan does not use " + index + ": " + plan);
+    }
+}
@@ -0,0 +1,39 @@
+package spring_tasks.spring_project.repository;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.stream.Collectors;
+
+@DataJpaTest(properties = AbstractBookQueryPlanTest.INSPECTOR_PROPERTY)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class BookQueryPlanPostgresTest extends AbstractBookQueryPlanTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:16");
+
+    @DynamicPropertySource
+    static void overrideDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    // fresh tables have no statistics yet, so rule out the sequential scan the planner would
+    // otherwise pick for them and check an index path exists for the query
+    @Override
+    protected String explain(String sql, Object... params) {
+        jdbcTemplate.execute("analyze book");
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        return jdbcTemplate.queryForList("explain " + sql, String.class, params).stream().collect(Collectors.joining("\n"));
+    }
+}
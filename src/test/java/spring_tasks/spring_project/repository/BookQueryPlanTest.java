@@ -0,0 +1,15 @@
+package spring_tasks.spring_project.repository;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.stream.Collectors;
+
+@DataJpaTest(properties = AbstractBookQueryPlanTest.INSPECTOR_PROPERTY)
+class BookQueryPlanTest extends AbstractBookQueryPlanTest {
+
+    // H2 names the chosen index in a comment after the table, e.g. /* PUBLIC.IDX_BOOK_AUTHOR: ... */
+    @Override
+    protected String explain(String sql, Object... params) {
+        return jdbcTemplate.queryForList("explain " + sql, String.class, params).stream().collect(Collectors.joining("\n"));
+    }
+}
@@ -5,12 +5,18 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import spring_tasks.spring_project.kafka.event.BookEventSchemaRegistry;
+import spring_tasks.spring_project.kafka.event.BookEventSerializer;
+import spring_tasks.spring_project.kafka.producer.BookEventPublisher;
+import spring_tasks.spring_project.kafka.producer.KafkaProducerService;
 import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.models.BookChangeListener;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,6 +26,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
 @Testcontainers
+// saving a Book runs BookChangeListener, which the JPA slice does not scan
+@Import({BookChangeListener.class, BookEventPublisher.class, KafkaProducerService.class, BookEventSerializer.class, BookEventSchemaRegistry.class})
 class BookRepositoryTest {
 
     @Container
@@ -95,4 +103,18 @@ class BookRepositoryTest {
         assertEquals(LocalDate.of(2024, 6, 17), result.getPublishedDate());
     }
 
+    @Test
+    void testVersionedUpdateAndDeleteOnlyMatchCurrentVersion() {
+        Book savedBook = bookRepository.saveAndFlush(new Book("Title", "Author", LocalDate.of(2020, 1, 1)));
+        int id = savedBook.getId();
+
+        assertEquals(1, bookRepository.updateByIdAndVersion(id, 0, "New Title", "Author", null, Book.currentTimestamp()));
+        assertEquals(0, bookRepository.updateByIdAndVersion(id, 0, "Lost Update", "Author", null, Book.currentTimestamp()));
+        assertEquals(1L, bookRepository.findVersionDTOById(id).orElseThrow().version());
+
+        assertEquals(0, bookRepository.removeByIdAndVersion(id, 0));
+        assertEquals(1, bookRepository.removeByIdAndVersion(id, 1));
+        assertFalse(bookRepository.existsById(id));
+    }
+
 }
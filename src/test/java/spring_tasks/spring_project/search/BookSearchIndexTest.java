@@ -0,0 +1,190 @@
+package spring_tasks.spring_project.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.models.BookImage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // long enough that nothing becomes searchable without an explicit refresh
+        index = new BookSearchIndex("", Duration.ofMinutes(10));
+        index.index(1, new BookImage("The Hobbit", "J.R.R. Tolkien", LocalDate.of(1937, 9, 21)), 0, null);
+        index.index(2, new BookImage("The Lord of the Rings", "J.R.R. Tolkien", null), 0, null);
+        index.index(3, new BookImage("Pride and Prejudice", "Jane Austen", LocalDate.of(1813, 1, 28)), 0, null);
+        index.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Test
+    void testTermMatchesTitleAndAuthor() {
+        assertEquals(List.of(3), ids(index.search("austen", 10)));
+        assertEquals(List.of(1), ids(index.search("hobbit", 10)));
+    }
+
+    @Test
+    void testPrefixQuery() {
+        assertEquals(List.of(1, 2), ids(index.search("tolk*", 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void testFuzzyQueryToleratesTypos() {
+        assertEquals(List.of(3), ids(index.search("prejudise~", 10)));
+    }
+
+    @Test
+    void testPhraseQueryKeepsWordOrder() {
+        assertEquals(List.of(2), ids(index.search("\"lord of the rings\"", 10)));
+        assertTrue(index.search("\"rings the of lord\"", 10).isEmpty());
+    }
+
+    @Test
+    void testHitsCarryStoredFields() {
+        BookResponseDTO hit = index.search("author:austen", 10).get(0);
+
+        assertEquals(new BookResponseDTO(3, "Pride and Prejudice", "Jane Austen", LocalDate.of(1813, 1, 28), 0, null), hit);
+    }
+
+    @Test
+    void testChangeEventsKeepIndexCurrent() {
+        index.onBookChanged(BookEvent.updated(1, new BookImage("The Hobbit", "J.R.R. Tolkien", null),
+                new BookImage("There and Back Again", "J.R.R. Tolkien", null), 1L, Instant.now()));
+        index.onBookChanged(BookEvent.deleted(3, new BookImage("Pride and Prejudice", "Jane Austen", null), 0L, Instant.now()));
+        index.refresh();
+
+        assertTrue(index.search("hobbit", 10).isEmpty());
+        assertEquals(List.of(1), ids(index.search("\"back again\"", 10)));
+        assertEquals(1, index.search("\"back again\"", 10).get(0).version());
+        assertTrue(index.search("austen", 10).isEmpty());
+    }
+
+    @Test
+    void testPartialChangeKeepsOtherStoredFields() {
+        BookEvent event = BookEvent.patched(3, new BookImage("Emma", null, null), List.of("title"), 1L, Instant.now());
+        index.onBookChanged(event);
+        index.refresh();
+
+        assertEquals(List.of(new BookResponseDTO(3, "Emma", "Jane Austen", LocalDate.of(1813, 1, 28), 1, event.timestamp())),
+                index.search("austen", 10));
+        assertTrue(index.search("prejudice", 10).isEmpty());
+    }
+
+    @Test
+    void testWritesWaitForRefresh() {
+        index.index(4, new BookImage("Emma", "Jane Austen", null), 0, null);
+        assertEquals(List.of(3), ids(index.search("austen", 10)));
+
+        index.refresh();
+        assertEquals(List.of(3, 4), ids(index.search("austen", 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void testPartialChangeSeesWritesNotYetRefreshed() {
+        index.index(4, new BookImage("Emma", "Jane Austen", LocalDate.of(1815, 12, 23)), 0, null);
+        index.patch(4, new BookImage("Persuasion", null, null), List.of("title"), 1L, null);
+        index.refresh();
+
+        assertEquals(List.of(new BookResponseDTO(4, "Persuasion", "Jane Austen", LocalDate.of(1815, 12, 23), 1, null)),
+                index.search("persuasion", 10));
+    }
+
+    @Test
+    void testOlderPartialChangeIsDropped() {
+        index.patch(3, new BookImage("Emma", null, null), List.of("title"), 2L, null);
+        // the event of an earlier commit arriving late must not undo the newer title
+        index.patch(3, new BookImage("Persuasion", null, null), List.of("title"), 1L, null);
+        index.refresh();
+
+        assertEquals(List.of("Emma"), index.search("austen", 10).stream().map(BookResponseDTO::title).toList());
+    }
+
+    @Test
+    void testOlderFullChangeIsDropped() {
+        index.index(3, new BookImage("Emma", "Jane Austen", null), 2, null);
+        // an UPDATED event of an earlier commit arriving late must not overwrite the newer book
+        index.index(3, new BookImage("Persuasion", "Jane Austen", null), 1, null);
+        index.refresh();
+
+        assertEquals(List.of("Emma"), index.search("austen", 10).stream().map(BookResponseDTO::title).toList());
+    }
+
+    @Test
+    void testRebuildReplacesContents() {
+        BookResponseDTO book = new BookResponseDTO(9, "Emma", "Jane Austen", null, 0, null);
+
+        assertEquals(1, index.rebuild(() -> Stream.of(book)));
+
+        assertEquals(List.of(9), ids(index.search("austen", 10)));
+        assertTrue(index.search("tolkien", 10).isEmpty());
+    }
+
+    @Test
+    void testChangesDuringRebuildAreAppliedAfterIt() throws Exception {
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread rebuild = new Thread(() -> index.rebuild(() -> Stream.of(new BookResponseDTO(9, "Emma", "Jane Austen", null, 0, null))
+                .peek(book -> {
+                    streaming.countDown();
+                    await(release);
+                })));
+        rebuild.start();
+        streaming.await();
+
+        Thread change = new Thread(() -> index.index(9, new BookImage("Emma Revised", "Jane Austen", null), 1, null));
+        change.start();
+        // the change waits for the rebuild instead of being cleared away by it
+        while (change.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        rebuild.join();
+        change.join();
+        index.refresh();
+
+        assertEquals(List.of("Emma Revised"), index.search("austen", 10).stream().map(BookResponseDTO::title).toList());
+    }
+
+    @Test
+    void testTitleSearchTakesTextLiterally() {
+        assertEquals(List.of(2), ids(index.searchTitle("Lord of the Rings", 10)));
+        // query syntax is not interpreted, so the wildcard matches nothing
+        assertTrue(index.searchTitle("hob*", 10).isEmpty());
+        assertTrue(index.searchTitle("   ", 10).isEmpty());
+    }
+
+    @Test
+    void testInvalidQueryIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("title:(unclosed", 10));
+    }
+
+    private static List<Integer> ids(List<BookResponseDTO> hits) {
+        return hits.stream().map(BookResponseDTO::id).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package spring_tasks.spring_project.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import spring_tasks.spring_project.dto.BookRequestDTO;
+import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.models.BookImage;
+import spring_tasks.spring_project.repository.BookPatch;
+import spring_tasks.spring_project.service.BookService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The index follows committed changes made through BookService; each step refreshes instead of
+ * waiting for the scheduled reopen.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "google.api.key=test-key",
+        "google.api.base-url=https://mock-api.com"
+})
+class LocalSearchTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Test
+    void testMutationsAreSearchableOnceCommitted() {
+        BookResponseDTO book = bookService.addBook(new BookRequestDTO("Zyzzyva Field Guide", "Searchable Author", LocalDate.of(2020, 1, 1)));
+        bookSearchIndex.refresh();
+        assertEquals(List.of(book), bookService.searchLocal("zyzzyva", 10));
+
+        bookService.updateBook(book.id(), new BookRequestDTO("Quokka Field Guide", "Searchable Author", LocalDate.of(2020, 1, 1)), null);
+        bookSearchIndex.refresh();
+        assertTrue(bookService.searchLocal("zyzzyva", 10).isEmpty());
+        assertEquals(1, bookService.searchLocal("quok*", 10).size());
+
+        bookService.patchBook(book.id(),
+                new BookPatch(new BookImage(null, "Renamed Author", null), List.of(BookPatch.AUTHOR)), null).orElseThrow();
+        BookResponseDTO patched = bookService.getBookById(book.id()).orElseThrow();
+        assertEquals("Quokka Field Guide", patched.title());
+        bookSearchIndex.refresh();
+        assertEquals(List.of(patched), bookService.searchLocal("quok* AND renamed", 10));
+
+        bookService.deleteBook(book.id(), null);
+        bookSearchIndex.refresh();
+        assertTrue(bookService.searchLocal("quok*", 10).isEmpty());
+    }
+}
@@ -0,0 +1,198 @@
+package spring_tasks.spring_project.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import spring_tasks.spring_project.client.GoogleBooksClient;
+import spring_tasks.spring_project.client.GoogleVolumeMapper;
+import spring_tasks.spring_project.dto.BookRequestDTO;
+import spring_tasks.spring_project.dto.BulkImportResponseDTO;
+import spring_tasks.spring_project.models.Book;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookBulkServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+    @Mock
+    private MeterRegistry meterRegistry;
+    @Mock
+    private Counter counter;
+    @Mock
+    private GoogleBooksClient googleBooksClient;
+    @Spy
+    private GoogleVolumeMapper googleVolumeMapper = new GoogleVolumeMapper(new SimpleMeterRegistry());
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    @InjectMocks
+    private BookBulkService bookBulkService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(meterRegistry.counter("books.added.count")).thenReturn(counter);
+        // hand out ids the way the sequence would
+        AtomicInteger ids = new AtomicInteger();
+        doAnswer(invocation -> {
+            invocation.<Book>getArgument(0).setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Book.class));
+    }
+
+    @Test
+    void testImportBooksValidatesEachRecord() {
+        List<BookRequestDTO> books = Arrays.asList(
+                new BookRequestDTO("Title 1", "Author 1", LocalDate.of(2020, 1, 1)),
+                new BookRequestDTO(null, "Author 2", LocalDate.of(2020, 1, 1)),
+                null,
+                new BookRequestDTO("Title 4", "Author 4", LocalDate.of(2020, 1, 1))
+        );
+
+        BulkImportResponseDTO result = bookBulkService.importBooks(books);
+
+        assertEquals(2, result.created());
+        assertEquals(2, result.rejected());
+        assertEquals("CREATED", result.results().get(0).status());
+        assertEquals(1, result.results().get(0).id());
+        assertEquals("REJECTED", result.results().get(1).status());
+        assertTrue(result.results().get(1).error().startsWith("title"));
+        assertEquals("REJECTED", result.results().get(2).status());
+        assertEquals(2, result.results().get(3).id());
+        verify(entityManager, times(2)).persist(any(Book.class));
+        verify(counter).increment(2);
+    }
+
+    @Test
+    void testImportBooksWritesInChunks() {
+        ReflectionTestUtils.setField(bookBulkService, "batchSize", 2);
+        List<BookRequestDTO> books = List.of(
+                new BookRequestDTO("Title 1", "Author", LocalDate.of(2020, 1, 1)),
+                new BookRequestDTO("Title 2", "Author", LocalDate.of(2020, 1, 1)),
+                new BookRequestDTO("Title 3", "Author", LocalDate.of(2020, 1, 1))
+        );
+
+        BulkImportResponseDTO result = bookBulkService.importBooks(books);
+
+        assertEquals(3, result.created());
+        verify(session, times(2)).setJdbcBatchSize(2);
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void testImportBooksReportsFailedChunk() {
+        doThrow(new RuntimeException("db down")).when(entityManager).flush();
+
+        BulkImportResponseDTO result = bookBulkService.importBooks(
+                List.of(new BookRequestDTO("Title", "Author", LocalDate.of(2020, 1, 1))));
+
+        assertEquals(0, result.created());
+        assertEquals("FAILED", result.results().get(0).status());
+    }
+
+    @Test
+    void testImportNdjsonSkipsMalformedLines() throws Exception {
+        String body = """
+                {"title":"Title 1","author":"Author","publishedDate":"2020-01-01"}
+                not json
+
+                {"title":"Title 2","author":"Author","publishedDate":"2020-01-01"}
+                """;
+
+        BulkImportResponseDTO result = bookBulkService.importNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, result.created());
+        assertEquals(1, result.rejected());
+        assertEquals(3, result.results().size());
+        assertTrue(result.results().get(1).error().startsWith("Malformed JSON"));
+    }
+
+    @Test
+    void testImportFromGoogleReportsEachId() throws Exception {
+        byte[] good = volume("good");
+        when(googleBooksClient.importVolume("good")).thenReturn(Mono.just(good));
+        when(googleBooksClient.importVolume("missing")).thenReturn(Mono.error(new NoSuchElementException("No book found for id: missing")));
+        when(googleBooksClient.importVolume("broken")).thenReturn(Mono.error(new RuntimeException("Service Unavailable")));
+
+        BulkImportResponseDTO result = bookBulkService.importFromGoogle(List.of("good", "missing", "\"\"", "broken"));
+
+        assertEquals(1, result.created());
+        assertEquals(3, result.rejected());
+        assertEquals("CREATED", result.results().get(0).status());
+        assertEquals(1, result.results().get(0).id());
+        assertEquals("NOT_FOUND", result.results().get(1).status());
+        assertEquals("REJECTED", result.results().get(2).status());
+        assertEquals("FAILED", result.results().get(3).status());
+        assertEquals("Service Unavailable", result.results().get(3).error());
+        verify(counter).increment(1);
+    }
+
+    @Test
+    void testImportFromGoogleBoundsConcurrency() throws Exception {
+        ReflectionTestUtils.setField(bookBulkService, "googleImportConcurrency", 3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        byte[] volume = volume("id");
+        when(googleBooksClient.importVolume(anyString())).thenAnswer(invocation -> Mono.defer(() -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return Mono.delay(Duration.ofMillis(20)).map(tick -> {
+                inFlight.decrementAndGet();
+                return volume;
+            });
+        }));
+
+        BulkImportResponseDTO result = bookBulkService.importFromGoogle(Collections.nCopies(12, "id"));
+
+        assertEquals(12, result.created());
+        assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    void testImportFromGoogleRejectsTooManyIds() {
+        ReflectionTestUtils.setField(bookBulkService, "googleImportMaxIds", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> bookBulkService.importFromGoogle(List.of("a", "b", "c")));
+        verifyNoInteractions(googleBooksClient);
+    }
+
+    private byte[] volume(String id) {
+        return """
+                {"id":"%s","volumeInfo":{"title":"Title","authors":["Author"],"publishedDate":"2020-01-01"}}
+                """.formatted(id).getBytes(StandardCharsets.UTF_8);
+    }
+}
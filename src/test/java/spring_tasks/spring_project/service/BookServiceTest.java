@@ -1,34 +1,60 @@
 package spring_tasks.spring_project.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.mockito.Spy;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import spring_tasks.spring_project.cache.BookCache;
+import spring_tasks.spring_project.cache.GoogleSearchCache;
+import spring_tasks.spring_project.client.GoogleBooksClient;
+import spring_tasks.spring_project.client.GoogleVolumeMapper;
+import spring_tasks.spring_project.dto.BookPageDTO;
 import spring_tasks.spring_project.dto.BookRequestDTO;
 import spring_tasks.spring_project.dto.BookResponseDTO;
+import spring_tasks.spring_project.dto.BookVersionDTO;
 import spring_tasks.spring_project.dto.GoogleApiRequestDTO;
 import spring_tasks.spring_project.dto.GoogleApiResponseDTO;
-import spring_tasks.spring_project.kafka.producer.KafkaProducerService;
+import spring_tasks.spring_project.dto.SearchResultDTO;
+import spring_tasks.spring_project.kafka.event.BookEvent;
+import spring_tasks.spring_project.kafka.event.BookEventType;
+import spring_tasks.spring_project.kafka.producer.BookEventPublisher;
 import spring_tasks.spring_project.models.Book;
+import spring_tasks.spring_project.models.BookImage;
+import spring_tasks.spring_project.repository.BookFilter;
+import spring_tasks.spring_project.repository.BookPatch;
 import spring_tasks.spring_project.repository.BookRepository;
+import spring_tasks.spring_project.search.BookSearchIndex;
 
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
-import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -44,11 +70,24 @@ class BookServiceTest {
     @Mock
     private  Counter booksAddedCounter;
     @Mock
-    private RestTemplate restTemplate;
-
+    private GoogleBooksClient googleBooksClient;
+    @Spy
+    private GoogleVolumeMapper googleVolumeMapper = new GoogleVolumeMapper(new SimpleMeterRegistry());
 
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private EntityManager entityManager;
+    @Mock
+    private BookCache bookCache;
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    @Mock
+    private BookEventPublisher bookEventPublisher;
+    @Spy
+    private GoogleSearchCache googleSearchCache = new GoogleSearchCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), Duration.ofSeconds(10));
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @Spy
+    private Validator validator = validator();
     @InjectMocks
     private BookService bookService;
 
@@ -57,19 +96,192 @@ class BookServiceTest {
         MockitoAnnotations.openMocks(this);
     }
 
+    // resolves the {key} messages from messages.properties the way the application's validator does
+    private static Validator validator() {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.setValidationMessageSource(messageSource);
+        validator.afterPropertiesSet();
+        return validator;
+    }
+
+    @Test
+    void testSearchLocalCapsLimit() {
+        List<BookResponseDTO> hits = List.of(new BookResponseDTO(1, "The Hobbit", "J.R.R. Tolkien", null, 0, null));
+        when(bookSearchIndex.search("hobbit", 100)).thenReturn(hits);
+
+        assertEquals(hits, bookService.searchLocal("hobbit", 1000));
+        verifyNoInteractions(bookRepository, googleBooksClient);
+    }
+
     @Test
-    void testGetAllBooks() {
-        List<Book> books = Arrays.asList(
-                new Book("Title 1", "Author 1", LocalDate.now()),
-                new Book("Title 2", "Author 2", LocalDate.now())
-        );
+    void testSearchHybridAnswersLocallyWhenEnoughHits() {
+        when(meterRegistry.counter(eq("books.search.hybrid"), any(String[].class))).thenReturn(booksAddedCounter);
+        when(bookSearchIndex.searchTitle("The Hobbit", 1))
+                .thenReturn(List.of(new BookResponseDTO(1, "The Hobbit", "J.R.R. Tolkien", null, 0, null)));
 
-        when(bookRepository.findAll()).thenReturn(books);
+        List<SearchResultDTO> results = bookService.searchHybrid("The Hobbit", 1);
 
-        List<BookResponseDTO> result = bookService.getAllBooks();
+        assertEquals(List.of(new SearchResultDTO("1", "The Hobbit", List.of("J.R.R. Tolkien"), null, "LOCAL")), results);
+        verifyNoInteractions(googleBooksClient);
+        verify(meterRegistry).counter("books.search.hybrid", "source", "local");
+    }
 
-        assertEquals(2, result.size());
-        verify(bookRepository, times(1)).findAll();
+    @Test
+    void testSearchHybridMergesGoogleResultsOnPartialHit() throws Exception {
+        when(meterRegistry.counter(eq("books.search.hybrid"), any(String[].class))).thenReturn(booksAddedCounter);
+        when(bookSearchIndex.searchTitle("The Hobbit", 10))
+                .thenReturn(List.of(new BookResponseDTO(1, "The Hobbit", "J.R.R. Tolkien", null, 0, null)));
+        byte[] volumes = """
+                {"items":[
+                  {"id":"g1","volumeInfo":{"title":"the  hobbit","authors":["J.R.R. Tolkien"],"publishedDate":"1937"}},
+                  {"id":"g2","volumeInfo":{"title":"The Hobbit","authors":["Someone Else"],"publishedDate":"2001"}},
+                  {"id":"g3","volumeInfo":{"title":"The Hobbit","authors":["Someone Else"],"publishedDate":"2002"}}
+                ]}""".getBytes(StandardCharsets.UTF_8);
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.just(volumes));
+
+        List<SearchResultDTO> results = bookService.searchHybrid("The Hobbit", 10);
+
+        assertEquals(List.of("1", "g2"), results.stream().map(SearchResultDTO::id).toList());
+        assertEquals(List.of("LOCAL", "GOOGLE"), results.stream().map(SearchResultDTO::source).toList());
+        verify(meterRegistry).counter("books.search.hybrid", "source", "google");
+    }
+
+    @Test
+    void testSearchHybridKeepsLocalHitsWhenGoogleFails() {
+        when(meterRegistry.counter(eq("books.search.hybrid"), any(String[].class))).thenReturn(booksAddedCounter);
+        when(bookSearchIndex.searchTitle("The Hobbit", 10))
+                .thenReturn(List.of(new BookResponseDTO(1, "The Hobbit", "J.R.R. Tolkien", null, 0, null)));
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.error(new RuntimeException("Service Unavailable")));
+
+        List<SearchResultDTO> results = bookService.searchHybrid("The Hobbit", 10);
+
+        assertEquals(List.of("LOCAL"), results.stream().map(SearchResultDTO::source).toList());
+    }
+
+    @Test
+    void testSearchHybridMarksThePlaceholderWhenNothingIsFound() {
+        when(meterRegistry.counter(eq("books.search.hybrid"), any(String[].class))).thenReturn(booksAddedCounter);
+        when(bookSearchIndex.searchTitle("The Hobbit", 10)).thenReturn(List.of());
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.error(new RuntimeException("Service Unavailable")));
+
+        List<SearchResultDTO> results = bookService.searchHybrid("The Hobbit", 10);
+
+        assertEquals(List.of("UNAVAILABLE"), results.stream().map(SearchResultDTO::source).toList());
+    }
+
+    @Test
+    void testSearchHybridLocalHitWithoutAuthor() {
+        ReflectionTestUtils.setField(bookService, "hybridMinLocalHits", 1);
+        when(meterRegistry.counter(eq("books.search.hybrid"), any(String[].class))).thenReturn(booksAddedCounter);
+        when(bookSearchIndex.searchTitle("The Hobbit", 10))
+                .thenReturn(List.of(new BookResponseDTO(1, "The Hobbit", null, null, 0, null)));
+
+        List<SearchResultDTO> results = bookService.searchHybrid("The Hobbit", 10);
+
+        assertEquals(List.of(new SearchResultDTO("1", "The Hobbit", List.of(), null, "LOCAL")), results);
+    }
+
+    @Test
+    void testSearchLocalRequiresQuery() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.searchLocal(" ", 10));
+        verifyNoInteractions(bookSearchIndex);
+    }
+
+    @Test
+    void testGetBooksPageFirstPage() {
+        BookResponseDTO book1 = new BookResponseDTO(1, "Title 1", "Author 1", LocalDate.now(), 0, null);
+        BookResponseDTO book2 = new BookResponseDTO(2, "Title 2", "Author 2", LocalDate.now(), 0, null);
+        BookResponseDTO book3 = new BookResponseDTO(3, "Title 3", "Author 3", LocalDate.now(), 0, null);
+
+        when(bookRepository.findPage(BookFilter.NONE, null, Sort.Direction.ASC, 3))
+                .thenReturn(List.of(book1, book2, book3));
+
+        BookPageDTO page = bookService.getBooksPage(2, "asc", null, BookFilter.NONE);
+
+        assertEquals(2, page.size());
+        assertEquals(2, page.items().get(1).id());
+        assertNotNull(page.nextCursor());
+        verify(bookRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetBooksPageFollowsCursor() {
+        BookResponseDTO book1 = new BookResponseDTO(1, "Title 1", "Author 1", LocalDate.now(), 0, null);
+        BookResponseDTO book2 = new BookResponseDTO(2, "Title 2", "Author 2", LocalDate.now(), 0, null);
+        when(bookRepository.findPage(BookFilter.NONE, null, Sort.Direction.DESC, 2)).thenReturn(List.of(book2, book1));
+
+        BookPageDTO first = bookService.getBooksPage(1, "desc", null, BookFilter.NONE);
+
+        when(bookRepository.findPage(BookFilter.NONE, 2, Sort.Direction.DESC, 2)).thenReturn(List.of(book1));
+
+        // the cursor keeps the direction it was issued for, whatever sort is passed
+        BookPageDTO second = bookService.getBooksPage(1, "asc", first.nextCursor(), BookFilter.NONE);
+
+        assertEquals(1, second.items().get(0).id());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void testGetBooksPagePassesFilter() {
+        BookFilter filter = new BookFilter("Jane Austen", null, LocalDate.of(1800, 1, 1), LocalDate.of(1820, 1, 1));
+        when(bookRepository.findPage(filter, null, Sort.Direction.ASC, 21)).thenReturn(List.of());
+
+        BookPageDTO page = bookService.getBooksPage(20, "asc", null, filter);
+
+        assertEquals(0, page.size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testGetBooksPageInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(10, "asc", "not-a-cursor", BookFilter.NONE));
+    }
+
+    @Test
+    void testExportBooksWritesOneLinePerBookAndDetaches() throws Exception {
+        Book book1 = new Book("Title 1", "Author 1", LocalDate.of(2020, 1, 1));
+        book1.setId(1);
+        Book book2 = new Book("Title 2", "Author 2", LocalDate.of(2021, 1, 1));
+        book2.setId(2);
+        when(bookRepository.streamAllOrderById()).thenReturn(Stream.of(book1, book2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = bookService.exportBooks(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertEquals("Title 2", objectMapper.readTree(lines[1]).get("title").asText());
+        verify(entityManager).detach(book1);
+        verify(entityManager).detach(book2);
+        verify(bookRepository, never()).findAll();
+    }
+
+    @Test
+    void testZeroExportFlushEveryIsRejectedAtStartup() {
+        ReflectionTestUtils.setField(bookService, "exportFlushEvery", 0);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> bookService.checkSettings());
+        assertTrue(e.getMessage().contains("app.books.export.flush-every"));
+    }
+
+    @Test
+    void testRebuildSearchIndexStreamsProjections() {
+        Stream<BookResponseDTO> books = Stream.of(new BookResponseDTO(1, "Title 1", "Author 1", null, 0, null));
+        when(bookRepository.streamAllResponsesOrderById()).thenReturn(books);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Supplier<Stream<BookResponseDTO>>> supplier = ArgumentCaptor.forClass(Supplier.class);
+
+        bookService.rebuildSearchIndex();
+
+        verify(bookSearchIndex).rebuild(supplier.capture());
+        // the stream is opened by the index, not before the call
+        verify(bookRepository, never()).streamAllResponsesOrderById();
+        assertSame(books, supplier.getValue().get());
+        verify(bookRepository, never()).streamAllOrderById();
     }
 
     @Test
@@ -78,6 +290,7 @@ class BookServiceTest {
         book.setId(1);
 
         when(bookRepository.findById(1)).thenReturn(Optional.of(book));
+        when(bookCache.get(eq(1), any())).thenAnswer(invocation -> invocation.<IntFunction<Optional<BookResponseDTO>>>getArgument(1).apply(1));
 
         Optional<BookResponseDTO> result = bookService.getBookById(1);
 
@@ -85,6 +298,30 @@ class BookServiceTest {
         assertEquals("Title", result.get().title());
     }
 
+    @Test
+    void testGetBookByIdCacheHit() {
+        BookResponseDTO cached = new BookResponseDTO(1, "Cached", "Author", LocalDate.now(), 0, null);
+        when(bookCache.get(eq(1), any())).thenReturn(Optional.of(cached));
+
+        Optional<BookResponseDTO> result = bookService.getBookById(1);
+
+        assertEquals("Cached", result.get().title());
+        verify(bookRepository, never()).findById(1);
+    }
+
+    @Test
+    void testGetBookByIdCacheMissLoadsThroughTheCache() {
+        Book book = new Book("Title", "Author", LocalDate.now());
+        book.setId(1);
+        when(bookRepository.findById(1)).thenReturn(Optional.of(book));
+        when(bookCache.get(eq(1), any())).thenAnswer(invocation -> invocation.<IntFunction<Optional<BookResponseDTO>>>getArgument(1).apply(1));
+
+        Optional<BookResponseDTO> result = bookService.getBookById(1);
+
+        assertEquals("Title", result.orElseThrow().title());
+        verify(bookCache, never()).put(any());
+    }
+
     @Test
     void testAddBook() {
         BookRequestDTO requestDTO = new BookRequestDTO("New Title", "New Author", LocalDate.now());
@@ -102,40 +339,208 @@ class BookServiceTest {
         assertEquals(1, result.id());
         verify(bookRepository, times(1)).save(any(Book.class));
         verify(mockCounter, times(1)).increment();
-
+        verify(bookCache).put(result);
     }
 
     @Test
     void testDeleteBookSuccess() {
-        when(bookRepository.existsById(1)).thenReturn(true);
+        LocalDate publishedDate = LocalDate.of(2020, 1, 1);
+        when(bookCache.get(1)).thenReturn(Optional.of(new BookResponseDTO(1, "Title", "Author", publishedDate, 3, null)));
+        when(bookRepository.removeByIdAndVersion(1, 3L)).thenReturn(1);
 
-        boolean result = bookService.deleteBook(1);
+        boolean result = bookService.deleteBook(1, null);
 
         assertTrue(result);
-        verify(bookRepository, times(1)).deleteById(1);
+        // one guarded statement, the row is not read
+        verify(bookRepository, never()).findById(1);
+        verify(bookRepository, never()).findVersionDTOById(1);
+        BookEvent event = publishedEvent();
+        assertEquals(BookEventType.DELETED, event.type());
+        assertEquals(1, event.bookId());
+        assertEquals(new BookImage("Title", "Author", publishedDate), event.before());
+        assertEquals(3L, event.version());
+        verify(bookCache).evict(1);
     }
 
     @Test
     void testDeleteBookNotFound() {
-        when(bookRepository.existsById(1)).thenReturn(false);
+        when(bookRepository.findVersionDTOById(1)).thenReturn(Optional.empty());
 
-        boolean result = bookService.deleteBook(1);
+        boolean result = bookService.deleteBook(1, null);
 
         assertFalse(result);
-        verify(bookRepository, never()).deleteById(1);
+        verify(bookRepository, never()).removeByIdAndVersion(anyInt(), anyLong());
+        verifyNoInteractions(bookEventPublisher);
     }
+
+    @Test
+    void testDeleteBookWithStaleVersionIsRefused() {
+        when(bookRepository.removeByIdAndVersion(1, 2L)).thenReturn(0);
+        when(bookRepository.findVersionDTOById(1)).thenReturn(Optional.of(new BookVersionDTO(3, null)));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.deleteBook(1, 2L));
+        verifyNoInteractions(bookEventPublisher);
+        verify(bookCache, never()).evict(anyInt());
+    }
+
     @Test
     void testUpdateBookSuccess() {
-        Book existingBook = new Book("Old Title", "Old Author", LocalDate.now());
-        existingBook.setId(1);
-        BookRequestDTO updatedBook = new BookRequestDTO("New Title", "New Author", LocalDate.now());
-        when(bookRepository.findById(1)).thenReturn(Optional.of(existingBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(existingBook);
-        Optional<BookResponseDTO> result = bookService.updateBook(1, updatedBook);
-        assertTrue(result.isPresent());
-        assertEquals("New Title", result.get().title());
-        verify(bookRepository, times(1)).save(existingBook);
+        LocalDate publishedDate = LocalDate.of(2020, 1, 1);
+        BookRequestDTO updatedBook = new BookRequestDTO("New Title", "New Author", publishedDate);
+        ArgumentCaptor<Instant> updatedAt = ArgumentCaptor.forClass(Instant.class);
+        when(bookCache.get(1)).thenReturn(Optional.of(new BookResponseDTO(1, "Old Title", "Old Author", publishedDate, 3, null)));
+        when(bookRepository.updateByIdAndVersion(eq(1), eq(3L), eq("New Title"), eq("New Author"), eq(publishedDate), updatedAt.capture())).thenReturn(1);
+
+        Optional<BookResponseDTO> result = bookService.updateBook(1, updatedBook, null);
+
+        assertEquals(Optional.of(new BookResponseDTO(1, "New Title", "New Author", publishedDate, 4, updatedAt.getValue())), result);
+        verify(bookRepository, never()).findById(1);
+        verify(bookRepository, never()).findVersionDTOById(1);
+        verify(bookRepository, never()).save(any(Book.class));
+        BookEvent event = publishedEvent();
+        assertEquals(BookEventType.UPDATED, event.type());
+        assertEquals(new BookImage("Old Title", "Old Author", publishedDate), event.before());
+        assertEquals("New Title", event.after().title());
+        assertEquals(4L, event.version());
+        verify(bookCache).evict(1);
+    }
+
+    @Test
+    void testUpdateBookAtExpectedVersion() {
+        BookRequestDTO updatedBook = new BookRequestDTO("New Title", "New Author", null);
+        when(bookRepository.updateByIdAndVersion(eq(1), eq(3L), eq("New Title"), eq("New Author"), isNull(), any(Instant.class))).thenReturn(1);
+
+        Optional<BookResponseDTO> result = bookService.updateBook(1, updatedBook, 3L);
+
+        assertEquals(4, result.orElseThrow().version());
+        verify(bookRepository, never()).findVersionDTOById(1);
+        // not cached, so there is no before image
+        assertNull(publishedEvent().before());
+    }
+
+    @Test
+    void testUpdateBookWithoutVersionReadsItOnCacheMiss() {
+        BookRequestDTO updatedBook = new BookRequestDTO("New Title", "New Author", null);
+        when(bookRepository.findVersionDTOById(1)).thenReturn(Optional.of(new BookVersionDTO(5, null)));
+        when(bookRepository.updateByIdAndVersion(eq(1), eq(5L), eq("New Title"), eq("New Author"), isNull(), any(Instant.class))).thenReturn(1);
+
+        Optional<BookResponseDTO> result = bookService.updateBook(1, updatedBook, null);
+
+        assertEquals(6, result.orElseThrow().version());
+        assertEquals(6L, publishedEvent().version());
+    }
+
+    @Test
+    void testUpdateBookRetriesWhenCachedVersionIsStale() {
+        BookRequestDTO updatedBook = new BookRequestDTO("New Title", "New Author", null);
+        when(bookCache.get(1)).thenReturn(Optional.of(new BookResponseDTO(1, "Old Title", "Old Author", null, 3, null)));
+        when(bookRepository.updateByIdAndVersion(eq(1), eq(3L), any(), any(), any(), any(Instant.class))).thenReturn(0);
+        when(bookRepository.findVersionDTOById(1)).thenReturn(Optional.of(new BookVersionDTO(4, null)));
+        when(bookRepository.updateByIdAndVersion(eq(1), eq(4L), any(), any(), any(), any(Instant.class))).thenReturn(1);
+
+        Optional<BookResponseDTO> result = bookService.updateBook(1, updatedBook, null);
+
+        assertEquals(5, result.orElseThrow().version());
+        // the cached copy is not the revision replaced
+        assertNull(publishedEvent().before());
+    }
+
+    @Test
+    void testUpdateBookWithStaleVersionIsRefused() {
+        BookRequestDTO updatedBook = new BookRequestDTO("New Title", "New Author", null);
+        when(bookRepository.updateByIdAndVersion(eq(1), eq(3L), any(), any(), any(), any(Instant.class))).thenReturn(0);
+        when(bookRepository.findVersionDTOById(1)).thenReturn(Optional.of(new BookVersionDTO(4, null)));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.updateBook(1, updatedBook, 3L));
+        verifyNoInteractions(bookEventPublisher);
+        verify(bookCache, never()).evict(anyInt());
+    }
+
+    @Test
+    void testGetBookVersionReadsOnlyVersionColumnsOnCacheMiss() {
+        BookVersionDTO version = new BookVersionDTO(3, Instant.parse("2025-01-01T00:00:00Z"));
+        when(bookCache.get(1)).thenReturn(Optional.empty());
+        when(bookRepository.findVersionDTOById(1)).thenReturn(Optional.of(version));
+
+        assertEquals(Optional.of(version), bookService.getBookVersion(1));
+        verify(bookRepository, never()).findById(1);
+    }
+
+    @Test
+    void testGetBookVersionFromCache() {
+        Instant updatedAt = Instant.parse("2025-01-01T00:00:00Z");
+        when(bookCache.get(1)).thenReturn(Optional.of(new BookResponseDTO(1, "Cached", "Author", null, 3, updatedAt)));
+
+        assertEquals(Optional.of(new BookVersionDTO(3, updatedAt)), bookService.getBookVersion(1));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void testPatchBookPublishesOnlyChangedFields() {
+        BookPatch patch = new BookPatch(new BookImage("New Title", null, null), List.of(BookPatch.TITLE));
+        ArgumentCaptor<Instant> updatedAt = ArgumentCaptor.forClass(Instant.class);
+        when(bookRepository.patch(eq(1), eq(4L), eq(patch), updatedAt.capture())).thenReturn(1);
+
+        Optional<BookVersionDTO> result = bookService.patchBook(1, patch, 4L);
+
+        assertEquals(Optional.of(new BookVersionDTO(5, updatedAt.getValue())), result);
+        // one statement: no read before the write and none after it
+        verify(bookRepository, never()).findVersionDTOById(1);
+        verify(bookRepository, never()).findById(1);
+        BookEvent event = publishedEvent();
+        assertEquals(BookEventType.UPDATED, event.type());
+        assertEquals(List.of("title"), event.changedFields());
+        assertEquals(new BookImage("New Title", null, null), event.after());
+        assertEquals(5L, event.version());
+        verify(bookCache).evict(1);
+    }
+
+    @Test
+    void testPatchBookWithoutVersionUsesCachedVersion() {
+        BookPatch patch = new BookPatch(new BookImage(null, "New Author", null), List.of(BookPatch.AUTHOR));
+        when(bookCache.get(1)).thenReturn(Optional.of(new BookResponseDTO(1, "Title", "Author", null, 7, null)));
+        when(bookRepository.patch(eq(1), eq(7L), eq(patch), any(Instant.class))).thenReturn(1);
+
+        assertEquals(8, bookService.patchBook(1, patch, null).orElseThrow().version());
+        verify(bookRepository, never()).findVersionDTOById(1);
+    }
+
+    @Test
+    void testPatchBookNotFound() {
+        BookPatch patch = new BookPatch(new BookImage("New Title", null, null), List.of(BookPatch.TITLE));
+        when(bookRepository.findVersionDTOById(99)).thenReturn(Optional.empty());
+
+        assertTrue(bookService.patchBook(99, patch, null).isEmpty());
+        verify(bookRepository, never()).patch(anyInt(), any(), any(), any());
+        verifyNoInteractions(bookEventPublisher);
+    }
+
+    @Test
+    void testPatchBookValidatesThePatchedFields() {
+        BookPatch removeAuthor = new BookPatch(new BookImage(null, null, null), List.of(BookPatch.AUTHOR));
+        BookPatch longTitle = new BookPatch(new BookImage("x".repeat(101), null, null), List.of(BookPatch.TITLE));
+        BookPatch futureDate = new BookPatch(new BookImage(null, null, LocalDate.now().plusDays(1)), List.of(BookPatch.PUBLISHED_DATE));
+
+        assertEquals("author : Author is required",
+                assertThrows(IllegalArgumentException.class, () -> bookService.patchBook(1, removeAuthor, null)).getMessage());
+        assertEquals("title : Title must be between 1 to 100 characters",
+                assertThrows(IllegalArgumentException.class, () -> bookService.patchBook(1, longTitle, null)).getMessage());
+        assertEquals("publishedDate : Published Date must be in the past or present",
+                assertThrows(IllegalArgumentException.class, () -> bookService.patchBook(1, futureDate, null)).getMessage());
+        // rejected before anything is read or written
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void testPatchBookStaleVersion() {
+        BookPatch patch = new BookPatch(new BookImage("New Title", null, null), List.of(BookPatch.TITLE));
+        when(bookRepository.patch(eq(1), eq(4L), eq(patch), any(Instant.class))).thenReturn(0);
+        when(bookRepository.findVersionDTOById(1)).thenReturn(Optional.of(new BookVersionDTO(5, null)));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.patchBook(1, patch, 4L));
+        verifyNoInteractions(bookEventPublisher);
     }
+
     @Test
     void testSearchBooksFallback() {
         List<GoogleApiResponseDTO> result = bookService.searchBooksFallback("Any Title", new RuntimeException("API down"));
@@ -150,9 +555,9 @@ class BookServiceTest {
     }
     @Test
     void testUpdateBookNotFound() {
-        when(bookRepository.findById(99)).thenReturn(Optional.empty());
-        Optional<BookResponseDTO> result = bookService.updateBook(99, new BookRequestDTO("Title", "Author", LocalDate.now()));
+        Optional<BookResponseDTO> result = bookService.updateBook(99, new BookRequestDTO("Title", "Author", LocalDate.now()), 1L);
         assertFalse(result.isPresent());
+        verifyNoInteractions(bookEventPublisher);
     }
 
 
@@ -179,8 +584,7 @@ class BookServiceTest {
 
         jsonNode.set("items", itemsArray);
 
-        ResponseEntity<JsonNode> responseEntity = new ResponseEntity<>(jsonNode, HttpStatus.OK);
-        when(restTemplate.getForEntity(anyString(), eq(JsonNode.class))).thenReturn(responseEntity);
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.just(jsonNode.toString().getBytes(StandardCharsets.UTF_8)));
 
         List<GoogleApiResponseDTO> result = bookService.searchBooks("Test Book");
 
@@ -193,40 +597,64 @@ class BookServiceTest {
     }
 
 
+    @Test
+    void testSearchBooksServedFromCacheForSameQuery() {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode jsonNode = mapper.createObjectNode();
+        jsonNode.set("items", mapper.createArrayNode());
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.just(jsonNode.toString().getBytes(StandardCharsets.UTF_8)));
+
+        bookService.searchBooks("The Hobbit");
+        bookService.searchBooks("  the   HOBBIT ");
+
+        verify(googleBooksClient, times(1)).searchVolumes(anyString());
+    }
+
+    @Test
+    void testSearchBooksFallsBackWhenUpstreamFails() {
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        List<GoogleApiResponseDTO> result = bookService.searchBooks("Test");
+
+        assertEquals("Google Books API is currently unavailable", result.get(0).title());
+    }
+
+    @Test
+    void testAddViaApiFallsBackWhenUpstreamFails() {
+        when(googleBooksClient.getVolume(anyString())).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        Book result = bookService.addViaApi(new GoogleApiRequestDTO("some-id"));
+
+        assertEquals("Google Books API is currently unavailable", result.getTitle());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
     @Test
     void testAddViaApiBookNotFound() {
-        JsonNode jsonNode = mock(JsonNode.class);
-        when(jsonNode.has("volumeInfo")).thenReturn(false);
+        byte[] body = "{\"id\":\"some-id\"}".getBytes(StandardCharsets.UTF_8);
 
-        ResponseEntity<JsonNode> responseEntity = new ResponseEntity<>(jsonNode, HttpStatus.OK);
-        when(restTemplate.getForEntity(anyString(), eq(JsonNode.class))).thenReturn(responseEntity);
+        when(googleBooksClient.getVolume(anyString())).thenReturn(Mono.just(body));
 
         GoogleApiRequestDTO request = new GoogleApiRequestDTO("some-id");
         assertThrows(NoSuchElementException.class, () -> bookService.addViaApi(request));
     }
     @Test
-    void testAddBookKafkaFailure() {
+    void testAddBookFailsWhenSaveFails() {
         BookRequestDTO requestDTO = new BookRequestDTO("Title", "Author", LocalDate.now());
-        Book book = new Book("Title", "Author", LocalDate.now());
-        book.setId(1);
+        when(meterRegistry.counter("books.added.count")).thenReturn(booksAddedCounter);
 
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
-        when(meterRegistry.counter("books.added.count")).thenReturn(mock(Counter.class));
-
-        doThrow(new RuntimeException("Kafka down")).when(kafkaProducerService).sendNotification(anyString());
+        when(bookRepository.save(any(Book.class))).thenThrow(new RuntimeException("outbox write failed"));
 
-        BookResponseDTO result = bookService.addBook(requestDTO);
-        assertEquals("Title", result.title());
-        verify(kafkaProducerService, times(1)).sendNotification(anyString());
+        assertThrows(RuntimeException.class, () -> bookService.addBook(requestDTO));
+        verify(bookCache, never()).put(any());
+        verify(booksAddedCounter, never()).increment();
     }
 
     @Test
     void testSearchBooksEmptyResponse() {
         ObjectMapper mapper = new ObjectMapper();
         ObjectNode jsonNode = mapper.createObjectNode(); // no 'items'
-        ResponseEntity<JsonNode> responseEntity = new ResponseEntity<>(jsonNode, HttpStatus.OK);
-
-        when(restTemplate.getForEntity(anyString(), eq(JsonNode.class))).thenReturn(responseEntity);
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.just(jsonNode.toString().getBytes(StandardCharsets.UTF_8)));
 
         List<GoogleApiResponseDTO> result = bookService.searchBooks("Test");
 
@@ -235,33 +663,57 @@ class BookServiceTest {
     }
     @Test
     void testAddViaApiMissingPublishedDate() {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode jsonNode = mapper.createObjectNode();
-        jsonNode.put("id", "book-id");
+        byte[] body = """
+                {"id":"book-id","volumeInfo":{"title":"Title","authors":["Author"]}}""".getBytes(StandardCharsets.UTF_8);
+        when(googleBooksClient.getVolume(anyString())).thenReturn(Mono.just(body));
 
-        ObjectNode volumeInfo = mapper.createObjectNode();
-        volumeInfo.put("title", "Title");
-        ArrayNode authorsArray = mapper.createArrayNode();
-        authorsArray.add("Author");
-        volumeInfo.set("authors", authorsArray);
-
-        jsonNode.set("volumeInfo", volumeInfo);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> bookService.addViaApi(new GoogleApiRequestDTO("book-id")));
 
-        ResponseEntity<JsonNode> responseEntity = new ResponseEntity<>(jsonNode, HttpStatus.OK);
-        when(restTemplate.getForEntity(anyString(), eq(JsonNode.class))).thenReturn(responseEntity);
+        assertTrue(ex.getMessage().contains("publishedDate"), ex.getMessage());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
 
-        RuntimeException ex = assertThrows(RuntimeException.class, () -> {
-            bookService.addViaApi(new GoogleApiRequestDTO("book-id"));
-        });
+    @Test
+    void testAddViaApiUnreadablePublishedDate() {
+        byte[] body = """
+                {"id":"book-id","volumeInfo":{"title":"Title","authors":["Author"],"publishedDate":"someday"}}""".getBytes(StandardCharsets.UTF_8);
+        when(googleBooksClient.getVolume(anyString())).thenReturn(Mono.just(body));
 
-        // Optional: check message if you like
-        assertTrue(ex.getMessage().contains("Text '' could not be parsed")
-                || ex instanceof NullPointerException
-                || ex instanceof DateTimeParseException);
+        assertThrows(IllegalArgumentException.class, () -> bookService.addViaApi(new GoogleApiRequestDTO("book-id")));
+        verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    void testSearchBooksReturnsValidVolumesWhenOthersAreBroken() {
+        byte[] body = """
+                {"items":[
+                  {"id":"no-date","volumeInfo":{"title":"Kept","authors":["A"]}},
+                  {"id":"no-title","volumeInfo":{"authors":["B"],"publishedDate":"2001"}},
+                  {"id":"ok","volumeInfo":{"title":"Also Kept","publishedDate":"2002-03"}}
+                ]}""".getBytes(StandardCharsets.UTF_8);
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.just(body));
+
+        List<GoogleApiResponseDTO> result = bookService.searchBooks("Kept");
+
+        assertEquals(List.of("no-date", "ok"), result.stream().map(GoogleApiResponseDTO::id).toList());
+        assertNull(result.get(0).publishedDate());
+        assertEquals(LocalDate.of(2002, 3, 1), result.get(1).publishedDate());
+    }
 
+    @Test
+    void testSearchBooksMalformedBodyFallsBackWithOneUpstreamCall() {
+        when(googleBooksClient.searchVolumes(anyString())).thenReturn(Mono.just("not json".getBytes(StandardCharsets.UTF_8)));
 
+        List<GoogleApiResponseDTO> result = bookService.searchBooks("Broken");
 
+        assertEquals("Google Books API is currently unavailable", result.get(0).title());
+        verify(googleBooksClient, times(1)).searchVolumes(anyString());
+    }
 
-}
\ No newline at end of file
+    private BookEvent publishedEvent() {
+        ArgumentCaptor<BookEvent> captor = ArgumentCaptor.forClass(BookEvent.class);
+        verify(bookEventPublisher).publish(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,74 @@
+package spring_tasks.spring_project.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import spring_tasks.spring_project.dto.BulkImportResponseDTO;
+import spring_tasks.spring_project.dto.BulkItemResultDTO;
+import spring_tasks.spring_project.dto.GoogleImportJobDTO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GoogleImportJobServiceTest {
+
+    private BookBulkService bookBulkService;
+    private final List<Runnable> queued = new ArrayList<>();
+    private GoogleImportJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        bookBulkService = mock(BookBulkService.class);
+        // tasks wait in a list until the test runs them
+        jobService = new GoogleImportJobService(bookBulkService, new TaskExecutorAdapter(queued::add), Duration.ofMinutes(1), 10);
+    }
+
+    @Test
+    void testImportRunsInTheBackground() {
+        BulkImportResponseDTO result = new BulkImportResponseDTO(1, 0, List.of(new BulkItemResultDTO(0, 7, "CREATED", null)));
+        when(bookBulkService.importFromGoogle(List.of("abc"))).thenReturn(result);
+
+        GoogleImportJobDTO job = jobService.submit(List.of("abc"));
+
+        assertEquals(GoogleImportJobService.QUEUED, job.status());
+        assertEquals(1, job.total());
+        verify(bookBulkService, never()).importFromGoogle(any());
+
+        queued.forEach(Runnable::run);
+
+        GoogleImportJobDTO done = jobService.getJob(job.id()).orElseThrow();
+        assertEquals(GoogleImportJobService.DONE, done.status());
+        assertEquals(result, done.result());
+        assertNotNull(done.finishedAt());
+    }
+
+    @Test
+    void testFailedImportIsReported() {
+        when(bookBulkService.importFromGoogle(List.of("abc"))).thenThrow(new IllegalStateException("database down"));
+
+        GoogleImportJobDTO job = jobService.submit(List.of("abc"));
+        queued.forEach(Runnable::run);
+
+        GoogleImportJobDTO failed = jobService.getJob(job.id()).orElseThrow();
+        assertEquals(GoogleImportJobService.FAILED, failed.status());
+        assertEquals("database down", failed.error());
+    }
+
+    @Test
+    void testTooManyIdsAreRejectedBeforeQueueing() {
+        doThrow(new IllegalArgumentException("At most 2 volume ids per import"))
+                .when(bookBulkService).checkGoogleImportSize(List.of("a", "b", "c"));
+
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit(List.of("a", "b", "c")));
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void testUnknownJobIsEmpty() {
+        assertTrue(jobService.getJob("missing").isEmpty());
+    }
+}